@@ -0,0 +1,191 @@
+package sample;
+
+import com.google.gson.Gson;
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses phone numbers and JSON documents off the caller thread (for example an I/O thread).
+ * Requests wait in a bounded queue and they are processed in batches by at most {@code maxConcurrency}
+ * tasks of the executor at the same time.
+ * If the queue is full, the request is rejected immediately: the returned future fails with
+ * {@link RejectedExecutionException}, so the caller can slow down or shed load.
+ * Futures are completed on the executor threads, use the async methods of {@link CompletableFuture}
+ * for expensive continuations.
+ */
+public final class AsyncParseService implements AutoCloseable {
+
+    @Nonnull
+    private final PhoneNumberParser parser;
+
+    @Nonnull
+    private final Gson gson;
+
+    @Nonnull
+    private final Executor executor;
+
+    private final int maxConcurrency;
+
+    private final int batchSize;
+
+    @Nonnull
+    private final BlockingQueue<Task<?>> queue;
+
+    private final AtomicInteger activeDrainers = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /**
+     * @param gson used by {@link #fromJson}; register {@link PhoneNumberTypeAdapterFactory} and
+     *             {@link ValidatingTypeAdapterFactory} to parse and validate the documents
+     * @param maxConcurrency max count of executor tasks used at the same time
+     * @param queueCapacity max count of waiting requests
+     * @param batchSize max count of requests processed by one executor task
+     */
+    public AsyncParseService(
+            @Nonnull PhoneNumberParser parser,
+            @Nonnull Gson gson,
+            @Nonnull Executor executor,
+            int maxConcurrency,
+            int queueCapacity,
+            int batchSize) {
+        Validate.isTrue(maxConcurrency > 0, "Max concurrency must be positive");
+        Validate.isTrue(queueCapacity > 0, "Queue capacity must be positive");
+        Validate.isTrue(batchSize > 0, "Batch size must be positive");
+        this.parser = Validate.notNull(parser, "parser");
+        this.gson = Validate.notNull(gson, "gson");
+        this.executor = Validate.notNull(executor, "executor");
+        this.maxConcurrency = maxConcurrency;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * @return future of the parsed phone number; fails with {@link PhoneNumber.ParseException}
+     * if failed to parse the text or with {@link RejectedExecutionException} if the queue is full
+     * @see PhoneNumberParser#parse
+     */
+    @Nonnull
+    public CompletableFuture<PhoneNumber> parse(@Nullable String text) {
+        return submit(() -> parser.parse(text));
+    }
+
+    /**
+     * @return future of the decoded document; fails with the exception of Gson or the validator
+     * or with {@link RejectedExecutionException} if the queue is full
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> fromJson(@Nonnull String json, @Nonnull Class<T> type) {
+        return submit(() -> gson.fromJson(json, type));
+    }
+
+    /**
+     * @return count of requests that can be accepted without rejection
+     */
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * Rejects the waiting and the new requests. Requests under processing are completed.
+     * The executor is not shut down.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        rejectQueued(new RejectedExecutionException("Parse service is closed"));
+    }
+
+    @Nonnull
+    private <T> CompletableFuture<T> submit(@Nonnull Callable<T> work) {
+        Task<T> task = new Task<>(work);
+        if (closed) {
+            task.future.completeExceptionally(new RejectedExecutionException("Parse service is closed"));
+        } else if (!queue.offer(task)) {
+            task.future.completeExceptionally(new RejectedExecutionException("Parse queue is full"));
+        } else {
+            scheduleDrainer();
+        }
+        return task.future;
+    }
+
+    /**
+     * Starts a new executor task if there are waiting requests and the concurrency limit allows it.
+     */
+    private void scheduleDrainer() {
+        while (!queue.isEmpty()) {
+            int active = activeDrainers.get();
+            if (active >= maxConcurrency) {
+                // a running drainer checks the queue again before it exits
+                return;
+            }
+            if (activeDrainers.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    activeDrainers.decrementAndGet();
+                    rejectQueued(ex);
+                }
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            List<Task<?>> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+            for (Task<?> task : batch) {
+                task.run();
+            }
+        } finally {
+            activeDrainers.decrementAndGet();
+            scheduleDrainer();
+        }
+    }
+
+    private void rejectQueued(@Nonnull RejectedExecutionException ex) {
+        List<Task<?>> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        for (Task<?> task : rejected) {
+            task.future.completeExceptionally(ex);
+        }
+    }
+
+    private static final class Task<T> {
+
+        @Nonnull
+        private final Callable<T> work;
+
+        @Nonnull
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(@Nonnull Callable<T> work) {
+            this.work = work;
+        }
+
+        /**
+         * Never throws, so an error of one request does not leave the rest of the batch incomplete.
+         */
+        private void run() {
+            try {
+                future.complete(work.call());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,352 @@
+package sample;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.net.URL;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * Remembers the results of the delegate parser for the most recently used texts: the phone number or the error type.
+ * The cache can be saved into a snapshot file (on shutdown or periodically) and loaded at startup,
+ * so a restarted process does not have to parse the hot numbers again.
+ * Snapshots are tied to the version of libphonenumber, a snapshot of another version is ignored,
+ * and so is every snapshot if the version can't be determined.
+ * The delegate must be deterministic (like {@link DefaultPhoneNumberParser}).
+ * A cached failure is thrown as a new exception with the same error type and message but without the cause,
+ * just like a failure restored from a snapshot.
+ * The cache is split into segments by the hash of the text, every segment has its own lock and LRU order,
+ * so the least recently used text of a segment is evicted even if the cache as a whole has older ones.
+ */
+public final class CachingPhoneNumberParser implements PhoneNumberParser {
+
+    private static final int FILE_MAGIC = 0x504e5043; // PNPC
+
+    /**
+     * Increment it if the file layout, {@link PhoneNumber.ParseException.ErrorType} or the parsing rules change.
+     */
+    private static final int FILE_VERSION = 2;
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private static final byte PARSED = 0;
+    private static final byte UNPARSED = 1;
+    private static final byte FAILED = 2;
+
+    private static final String LIBRARY_POM_PROPERTIES =
+            "/META-INF/maven/com.googlecode.libphonenumber/libphonenumber/pom.properties";
+
+    private static final String LIBRARY_BUNDLE_NAME = "com.googlecode.libphonenumber";
+
+    /**
+     * Version of libphonenumber (and its metadata) on the classpath, null if unknown
+     */
+    @Nullable
+    private static final String METADATA_VERSION = metadataVersion();
+
+    @Nonnull
+    private final PhoneNumberParser delegate;
+
+    /**
+     * Raw text to {@link PhoneNumber} or {@link Failure}; every segment is guarded by itself
+     */
+    @Nonnull
+    private final Segment[] segments;
+
+    /**
+     * @param maxEntries max count of cached texts, split evenly between the segments
+     */
+    public CachingPhoneNumberParser(@Nonnull PhoneNumberParser delegate, int maxEntries) {
+        Validate.isTrue(maxEntries > 0, "Max entries must be positive");
+        this.delegate = Validate.notNull(delegate, "delegate");
+        this.segments = new Segment[Integer.highestOneBit(Math.min(MAX_SEGMENTS, maxEntries))];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(maxEntries / segments.length);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public PhoneNumber parse(@Nullable String text) throws PhoneNumber.ParseException {
+        if (StringUtils.isEmpty(text)) {
+            // nothing to parse
+            return delegate.parse(text);
+        }
+        Segment segment = segmentOf(text);
+        Object cached;
+        synchronized (segment) {
+            cached = segment.get(text);
+        }
+        if (cached instanceof PhoneNumber) {
+            return (PhoneNumber) cached;
+        }
+        if (cached instanceof Failure) {
+            throw ((Failure) cached).toException();
+        }
+        try {
+            PhoneNumber phoneNumber = delegate.parse(text);
+            put(text, phoneNumber);
+            return phoneNumber;
+        } catch (PhoneNumber.ParseException ex) {
+            put(text, new Failure(ex.getErrorType(), ex.getMessage()));
+            throw ex;
+        }
+    }
+
+    /**
+     * @return count of cached texts
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes the cached results into the file atomically.
+     * @throws IOException if failed to write the file
+     */
+    public void snapshot(@Nonnull Path file) throws IOException {
+        List<Map.Entry<String, Object>> entries = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Map.Entry<String, Object> entry : segment.entrySet()) {
+                    if (isRestorable(entry.getKey(), entry.getValue())) {
+                        entries.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                    }
+                }
+            }
+        }
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            writeString(out, StringUtils.defaultString(METADATA_VERSION));
+            out.writeInt(entries.size());
+            // least recently used first per segment, so loading keeps the order
+            for (Map.Entry<String, Object> entry : entries) {
+                writeEntry(out, entry.getKey(), entry.getValue());
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot written by {@link #snapshot}. The file is memory-mapped while it's read.
+     * A missing file, a snapshot of another libphonenumber version or of another format is ignored,
+     * just like any snapshot if the version of libphonenumber is unknown.
+     * @return count of loaded entries
+     * @throws IOException if failed to read the file or it's corrupt
+     */
+    public int load(@Nonnull Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != FILE_MAGIC) {
+                throw new IOException("Not a phone number cache snapshot: " + file);
+            }
+            if (buffer.getInt() != FILE_VERSION || METADATA_VERSION == null || !METADATA_VERSION.equals(readString(buffer))) {
+                return 0;
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                readEntry(buffer);
+            }
+            return count;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException ex) {
+            throw new IOException("Corrupt phone number cache snapshot: " + file, ex);
+        }
+    }
+
+    private void put(@Nonnull String text, @Nonnull Object result) {
+        Segment segment = segmentOf(text);
+        synchronized (segment) {
+            segment.put(text, result);
+        }
+    }
+
+    @Nonnull
+    private Segment segmentOf(@Nonnull String text) {
+        int hash = text.hashCode();
+        // spread the high bits, like HashMap does
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * @return false if the phone number can't be restored from the text (the delegate changed the raw text)
+     */
+    private static boolean isRestorable(@Nonnull String text, @Nonnull Object result) {
+        return !(result instanceof PhoneNumber) || text.equals(((PhoneNumber) result).toRawString());
+    }
+
+    private static void writeEntry(@Nonnull DataOutputStream out, @Nonnull String text, @Nonnull Object result)
+            throws IOException {
+        writeString(out, text);
+        if (result instanceof PhoneNumber && ((PhoneNumber) result).isPresent()) {
+            PhoneNumber.Data data = ((PhoneNumber) result).get();
+            out.writeByte(PARSED);
+            out.writeShort(data.getCountry().getCallingCode());
+            out.writeByte(data.getNumberOfLeadingZeros());
+            out.writeLong(data.getNationalNumber());
+            writeString(out, data.getExtension());
+        } else if (result instanceof PhoneNumber) {
+            out.writeByte(UNPARSED);
+        } else {
+            Failure failure = (Failure) result;
+            out.writeByte(FAILED);
+            out.writeByte(failure.errorType.ordinal());
+            writeString(out, failure.message == null ? "" : failure.message);
+        }
+    }
+
+    private void readEntry(@Nonnull MappedByteBuffer buffer) {
+        String text = readString(buffer);
+        byte kind = buffer.get();
+        switch (kind) {
+            case PARSED:
+                int callingCode = buffer.getShort();
+                int leadingZeros = buffer.get();
+                long nationalNumber = buffer.getLong();
+                String extension = readString(buffer);
+                put(text, PhoneNumber.of(text, callingCode, leadingZeros, nationalNumber, extension));
+                break;
+            case UNPARSED:
+                put(text, PhoneNumber.unparsed(text));
+                break;
+            case FAILED:
+                PhoneNumber.ParseException.ErrorType errorType = PhoneNumber.ParseException.ErrorType.values()[buffer.get()];
+                put(text, new Failure(errorType, readString(buffer)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown entry kind: " + kind);
+        }
+    }
+
+    private static void writeString(@Nonnull DataOutputStream out, @Nonnull String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nonnull
+    private static String readString(@Nonnull MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment extends LinkedHashMap<String, Object> {
+
+        private final int maxEntries;
+
+        private Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            return size() > maxEntries;
+        }
+
+    }
+
+    private static final class Failure {
+
+        @Nonnull
+        private final PhoneNumber.ParseException.ErrorType errorType;
+
+        @Nullable
+        private final String message;
+
+        private Failure(@Nonnull PhoneNumber.ParseException.ErrorType errorType, @Nullable String message) {
+            this.errorType = errorType;
+            this.message = message;
+        }
+
+        /**
+         * @return new exception, so the stack trace is of the current call
+         */
+        @Nonnull
+        private PhoneNumber.ParseException toException() {
+            return new PhoneNumber.ParseException(errorType, message);
+        }
+
+    }
+
+    /**
+     * Reads the version from the Maven properties of the libphonenumber jar, or from its OSGi manifest
+     * (repackaged jars may keep only one of them).
+     * @return version of libphonenumber (and its metadata) on the classpath, null if not found
+     */
+    @Nullable
+    static String metadataVersion() {
+        try (InputStream in = PhoneNumberUtil.class.getResourceAsStream(LIBRARY_POM_PROPERTIES)) {
+            if (in != null) {
+                Properties properties = new Properties();
+                properties.load(in);
+                String version = properties.getProperty("version");
+                if (StringUtils.isNotBlank(version)) {
+                    return version;
+                }
+            }
+        } catch (IOException ex) {
+            // try the manifest
+        }
+        ClassLoader loader = PhoneNumberUtil.class.getClassLoader();
+        if (loader == null) {
+            return null;
+        }
+        try {
+            Enumeration<URL> manifests = loader.getResources("META-INF/MANIFEST.MF");
+            while (manifests.hasMoreElements()) {
+                try (InputStream in = manifests.nextElement().openStream()) {
+                    Attributes attributes = new Manifest(in).getMainAttributes();
+                    String name = attributes.getValue("Bundle-SymbolicName");
+                    String version = attributes.getValue("Bundle-Version");
+                    if (name != null && name.startsWith(LIBRARY_BUNDLE_NAME)
+                            && (name.length() == LIBRARY_BUNDLE_NAME.length() || name.charAt(LIBRARY_BUNDLE_NAME.length()) == ';')
+                            && StringUtils.isNotBlank(version)) {
+                        return version;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // unknown
+        }
+        return null;
+    }
+
+}
@@ -18,4 +18,9 @@ public class DefaultPhoneNumberParser implements PhoneNumberParser {
         return PhoneNumber.parseOptional(text);
     }
 
+    @Override
+    public void parseInto(@Nullable String text, @Nonnull PhoneNumberArray array) throws PhoneNumber.ParseException {
+        PhoneNumber.parseOptionalInto(text, array);
+    }
+
 }
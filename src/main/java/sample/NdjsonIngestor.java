@@ -0,0 +1,402 @@
+package sample;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads newline delimited JSON (one object per line) files in parallel.
+ * The file is memory-mapped and split into newline-aligned chunks, then the chunks are decoded by the executor.
+ * Decoding is done by the given {@link Gson}, so register {@link PhoneNumberTypeAdapterFactory}
+ * and {@link ValidatingTypeAdapterFactory} to parse and validate the records.
+ * The sink is always called on the thread of {@link #ingest}, so it does not have to be thread-safe.
+ */
+public final class NdjsonIngestor<T> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int BOUNDARY_SCAN_SIZE = 8192;
+
+    public enum Delivery {
+
+        /**
+         * Records are delivered in file order
+         */
+        ORDERED,
+
+        /**
+         * Chunks are delivered as soon as they are decoded, records of a chunk are still in file order
+         */
+        UNORDERED,
+    }
+
+    public interface Sink<T> {
+
+        void accept(@Nonnull T record);
+
+        void failed(@Nonnull Failure failure);
+
+    }
+
+    /**
+     * A line that could not be decoded or validated.
+     */
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static final class Failure {
+
+        /**
+         * Byte offset of the line in the file
+         */
+        private final long offset;
+
+        /**
+         * 1-based line number
+         */
+        private final long line;
+
+        @Nonnull
+        private final Exception cause;
+
+    }
+
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static final class Result {
+
+        private final long records;
+
+        private final long failures;
+
+    }
+
+    @Nonnull
+    private final TypeAdapter<T> adapter;
+
+    @Nonnull
+    private final ExecutorService executor;
+
+    private final int parallelism;
+
+    private final int chunkSize;
+
+    public NdjsonIngestor(@Nonnull Gson gson, @Nonnull Class<T> type, @Nonnull ExecutorService executor, int parallelism) {
+        this(gson, type, executor, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param parallelism count of threads of the executor that can decode at the same time
+     * @param chunkSize approximate size of a chunk in bytes
+     */
+    public NdjsonIngestor(
+            @Nonnull Gson gson, @Nonnull Class<T> type, @Nonnull ExecutorService executor, int parallelism, int chunkSize) {
+        Validate.isTrue(parallelism > 0, "Parallelism must be positive");
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive");
+        this.adapter = gson.getAdapter(type);
+        this.executor = Validate.notNull(executor, "executor");
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Decodes every line of the file and passes the records and the failures to the sink.
+     * Blank lines are skipped; a line with anything but whitespace after its record is a failure.
+     * @throws IOException if failed to read the file
+     * @throws InterruptedException if interrupted while waiting for the decoders
+     */
+    @Nonnull
+    public Result ingest(@Nonnull Path file, @Nonnull Delivery delivery, @Nonnull Sink<? super T> sink)
+            throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel);
+            countLines(channel, chunks);
+            if (delivery == Delivery.ORDERED) {
+                return deliverOrdered(channel, chunks, sink);
+            } else {
+                return deliverUnordered(channel, chunks, sink);
+            }
+        }
+    }
+
+    @Nonnull
+    private Result deliverOrdered(@Nonnull FileChannel channel, @Nonnull List<Chunk> chunks, @Nonnull Sink<? super T> sink)
+            throws IOException, InterruptedException {
+        Deque<Future<List<Object>>> inFlight = new ArrayDeque<>();
+        Counter counter = new Counter();
+        int next = 0;
+        try {
+            while (next < chunks.size() || !inFlight.isEmpty()) {
+                while (next < chunks.size() && inFlight.size() < maxInFlight()) {
+                    inFlight.add(executor.submit(decoder(channel, chunks.get(next++))));
+                }
+                deliver(await(inFlight.peek()), sink, counter);
+                inFlight.poll();
+            }
+        } finally {
+            for (Future<?> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        return counter.toResult();
+    }
+
+    @Nonnull
+    private Result deliverUnordered(@Nonnull FileChannel channel, @Nonnull List<Chunk> chunks, @Nonnull Sink<? super T> sink)
+            throws IOException, InterruptedException {
+        CompletionService<List<Object>> completion = new ExecutorCompletionService<>(executor);
+        // only the futures of the chunks that are not delivered yet, a completed future keeps its chunk
+        Set<Future<List<Object>>> inFlight = new HashSet<>();
+        Counter counter = new Counter();
+        int next = 0;
+        int done = 0;
+        try {
+            while (done < chunks.size()) {
+                while (next < chunks.size() && inFlight.size() < maxInFlight()) {
+                    inFlight.add(completion.submit(decoder(channel, chunks.get(next++))));
+                }
+                Future<List<Object>> decoded = completion.take();
+                inFlight.remove(decoded);
+                deliver(await(decoded), sink, counter);
+                done++;
+            }
+        } finally {
+            for (Future<?> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+        return counter.toResult();
+    }
+
+    /**
+     * Limits the decoded, but not yet delivered chunks in memory
+     */
+    private int maxInFlight() {
+        return parallelism * 2;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(@Nonnull List<Object> entries, @Nonnull Sink<? super T> sink, @Nonnull Counter counter) {
+        for (Object entry : entries) {
+            if (entry instanceof Failure) {
+                counter.failures++;
+                sink.failed((Failure) entry);
+            } else {
+                counter.records++;
+                sink.accept((T) entry);
+            }
+        }
+    }
+
+    @Nonnull
+    private static <V> V await(@Nonnull Future<V> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Splits the file into chunks that end with a newline (except the last one).
+     */
+    @Nonnull
+    private List<Chunk> split(@Nonnull FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize - 1, scan);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line is too long at offset " + start);
+            }
+            chunks.add(new Chunk(start, (int) (end - start)));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return position after the first newline at or after the given position, or the file size if there is none
+     */
+    private static long nextLineStart(@Nonnull FileChannel channel, long position, @Nonnull ByteBuffer scan)
+            throws IOException {
+        while (true) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Counts the newlines of every chunk in parallel, so failures can be reported with line number.
+     */
+    private void countLines(@Nonnull FileChannel channel, @Nonnull List<Chunk> chunks)
+            throws IOException, InterruptedException {
+        List<Future<Integer>> counts = new ArrayList<>(chunks.size());
+        try {
+            for (Chunk chunk : chunks) {
+                counts.add(executor.submit(() -> countNewlines(map(channel, chunk))));
+            }
+            long line = 1;
+            for (int i = 0; i < chunks.size(); i++) {
+                chunks.get(i).firstLine = line;
+                line += await(counts.get(i));
+            }
+        } finally {
+            for (Future<?> count : counts) {
+                count.cancel(true);
+            }
+        }
+    }
+
+    private static int countNewlines(@Nonnull ByteBuffer buffer) {
+        int count = 0;
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Nonnull
+    private static MappedByteBuffer map(@Nonnull FileChannel channel, @Nonnull Chunk chunk) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset, chunk.length);
+    }
+
+    /**
+     * @return task that decodes the chunk into records and failures in file order
+     */
+    @Nonnull
+    private Callable<List<Object>> decoder(@Nonnull FileChannel channel, @Nonnull Chunk chunk) {
+        return () -> {
+            MappedByteBuffer buffer = map(channel, chunk);
+            List<Object> entries = new ArrayList<>();
+            byte[] bytes = new byte[256];
+            long line = chunk.firstLine;
+            int lineStart = 0;
+            for (int i = 0; i <= buffer.limit(); i++) {
+                if (i < buffer.limit() && buffer.get(i) != '\n') {
+                    continue;
+                }
+                int lineEnd = i > lineStart && buffer.get(i - 1) == '\r' ? i - 1 : i;
+                int length = lineEnd - lineStart;
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                buffer.position(lineStart);
+                buffer.get(bytes, 0, length);
+                String text = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                if (!text.trim().isEmpty()) {
+                    try {
+                        entries.add(decode(text));
+                    } catch (IOException | RuntimeException ex) {
+                        entries.add(new Failure(chunk.offset + lineStart, line, ex));
+                    }
+                }
+                line++;
+                lineStart = i + 1;
+            }
+            return entries;
+        };
+    }
+
+    /**
+     * @throws JsonSyntaxException if the line has content after the record
+     */
+    @Nonnull
+    private T decode(@Nonnull String text) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(text));
+        T record = adapter.read(reader);
+        if (record == null) {
+            throw new NullPointerException("null record");
+        }
+        try {
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Content after the record: " + reader.peek());
+            }
+        } catch (MalformedJsonException ex) {
+            throw new JsonSyntaxException("Content after the record", ex);
+        }
+        return record;
+    }
+
+    private static final class Chunk {
+
+        private final long offset;
+
+        private final int length;
+
+        private long firstLine;
+
+        private Chunk(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+    }
+
+    private static final class Counter {
+
+        private long records;
+
+        private long failures;
+
+        @Nonnull
+        private Result toResult() {
+            return new Result(records, failures);
+        }
+
+    }
+
+}
@@ -0,0 +1,325 @@
+package sample;
+
+import com.google.gson.JsonParseException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the slowest inputs and a sample of the failing inputs of the parse and deserialize paths.
+ * Lock-free and cheap enough to leave on in production: a fast input costs two {@link System#nanoTime} calls
+ * and a volatile read, only the slow and the sampled failing inputs are recorded.
+ * Nested reads of {@link ValidatingTypeAdapterFactory} are recorded only by the outermost adapter,
+ * but the phone number inputs are recorded by their own operations too.
+ * Phone numbers are never stored as-is: they are redacted (most digits masked) and hashed with a random key
+ * of this recorder, so the same input can be recognized, but the hash can't be reversed outside of the process.
+ * The JSON payload of a validating read is not recorded, only the target type.
+ * @see PhoneNumberTypeAdapterFactory
+ * @see ValidatingTypeAdapterFactory
+ * @see RecordingPhoneNumberParser
+ */
+public final class ParseRecorder {
+
+    /**
+     * Records nothing
+     */
+    public static final ParseRecorder DISABLED = new ParseRecorder();
+
+    public enum Operation {
+
+        PHONE_NUMBER_ADAPTER_READ(true),
+        PHONE_NUMBER_PARSER_PARSE(true),
+        VALIDATING_ADAPTER_READ(false),
+        ;
+
+        /**
+         * The input is a phone number (not a type name)
+         */
+        private final boolean sensitive;
+
+        Operation(boolean sensitive) {
+            this.sensitive = sensitive;
+        }
+
+    }
+
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static final class Sample {
+
+        @Nonnull
+        private final Operation operation;
+
+        /**
+         * The input with masked digits (phone number) or the target type name
+         */
+        @Nonnull
+        private final String redactedInput;
+
+        /**
+         * Keyed hash of the complete phone number input, 0 if the input is a type name:
+         * a sample of {@link Operation#VALIDATING_ADAPTER_READ} identifies only the target type, not the payload
+         */
+        private final long phoneNumberHash;
+
+        /**
+         * The parse error type or null if it's not a parse error
+         */
+        @Nullable
+        private final PhoneNumber.ParseException.ErrorType errorType;
+
+        /**
+         * Class name of the failure or null if the operation succeeded
+         */
+        @Nullable
+        private final String exceptionType;
+
+        private final long durationNanos;
+
+        @Nonnull
+        private final String threadName;
+
+        private final long timestampMillis;
+
+    }
+
+    private final boolean enabled;
+
+    private final long hashKey;
+
+    private final int failureSamplingRate;
+
+    /**
+     * The slowest samples, unordered
+     */
+    @Nonnull
+    private final AtomicReferenceArray<Sample> slowest;
+
+    /**
+     * Durations up to this one are not slow enough to be recorded
+     */
+    private volatile long slowThresholdNanos;
+
+    /**
+     * Ring buffer of the sampled failures
+     */
+    @Nonnull
+    private final AtomicReferenceArray<Sample> failures;
+
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /**
+     * @param slowestCapacity count of the slowest inputs to keep
+     * @param failureCapacity count of the latest sampled failures to keep
+     * @param failureSamplingRate records 1 of this many failures
+     */
+    public ParseRecorder(int slowestCapacity, int failureCapacity, int failureSamplingRate) {
+        Validate.isTrue(slowestCapacity > 0, "Slowest capacity must be positive");
+        Validate.isTrue(failureCapacity > 0, "Failure capacity must be positive");
+        Validate.isTrue(failureSamplingRate > 0, "Failure sampling rate must be positive");
+        this.enabled = true;
+        this.hashKey = new SecureRandom().nextLong();
+        this.failureSamplingRate = failureSamplingRate;
+        this.slowest = new AtomicReferenceArray<>(slowestCapacity);
+        this.failures = new AtomicReferenceArray<>(failureCapacity);
+    }
+
+    private ParseRecorder() {
+        this.enabled = false;
+        this.hashKey = 0;
+        this.failureSamplingRate = 1;
+        this.slowest = new AtomicReferenceArray<>(0);
+        this.failures = new AtomicReferenceArray<>(0);
+    }
+
+    /**
+     * @return false if nothing is recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return start time of an operation
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void succeeded(@Nonnull Operation operation, @Nonnull String input, long start) {
+        if (!enabled) {
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        if (duration <= slowThresholdNanos) {
+            return;
+        }
+        offerSlow(sample(operation, input, null, duration));
+    }
+
+    public void failed(@Nonnull Operation operation, @Nonnull String input, long start, @Nonnull Exception ex) {
+        if (!enabled) {
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        boolean slow = duration > slowThresholdNanos;
+        boolean sampled = failureSamplingRate == 1 || ThreadLocalRandom.current().nextInt(failureSamplingRate) == 0;
+        if (!slow && !sampled) {
+            return;
+        }
+        Sample sample = sample(operation, input, ex, duration);
+        if (slow) {
+            offerSlow(sample);
+        }
+        if (sampled) {
+            failures.lazySet((int) (failureCount.getAndIncrement() % failures.length()), sample);
+        }
+    }
+
+    /**
+     * @return the slowest inputs, the slowest first
+     */
+    @Nonnull
+    public List<Sample> slowest() {
+        List<Sample> samples = snapshot(slowest);
+        samples.sort(Comparator.comparingLong(Sample::getDurationNanos).reversed());
+        return samples;
+    }
+
+    /**
+     * @return the latest sampled failures, the oldest first
+     */
+    @Nonnull
+    public List<Sample> failures() {
+        List<Sample> samples = snapshot(failures);
+        samples.sort(Comparator.comparingLong(Sample::getTimestampMillis));
+        return samples;
+    }
+
+    @Nonnull
+    private static List<Sample> snapshot(@Nonnull AtomicReferenceArray<Sample> samples) {
+        List<Sample> snapshot = new ArrayList<>(samples.length());
+        for (int i = 0; i < samples.length(); i++) {
+            Sample sample = samples.get(i);
+            if (sample != null) {
+                snapshot.add(sample);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Replaces the fastest of the kept samples (or an empty slot), then raises the threshold.
+     */
+    private void offerSlow(@Nonnull Sample sample) {
+        while (true) {
+            int fastestIndex = -1;
+            Sample fastest = null;
+            for (int i = 0; i < slowest.length(); i++) {
+                Sample current = slowest.get(i);
+                if (current == null) {
+                    fastestIndex = i;
+                    fastest = null;
+                    break;
+                }
+                if (fastest == null || current.durationNanos < fastest.durationNanos) {
+                    fastestIndex = i;
+                    fastest = current;
+                }
+            }
+            if (fastest != null && fastest.durationNanos >= sample.durationNanos) {
+                return;
+            }
+            if (slowest.compareAndSet(fastestIndex, fastest, sample)) {
+                updateSlowThreshold();
+                return;
+            }
+        }
+    }
+
+    private void updateSlowThreshold() {
+        long threshold = Long.MAX_VALUE;
+        for (int i = 0; i < slowest.length(); i++) {
+            Sample current = slowest.get(i);
+            if (current == null) {
+                // not full yet, everything is slow enough
+                return;
+            }
+            threshold = Math.min(threshold, current.durationNanos);
+        }
+        slowThresholdNanos = threshold;
+    }
+
+    @Nonnull
+    private Sample sample(@Nonnull Operation operation, @Nonnull String input, @Nullable Exception ex, long duration) {
+        return new Sample(
+                operation,
+                operation.sensitive ? redact(input) : input,
+                operation.sensitive ? hash(input) : 0,
+                errorTypeOf(ex),
+                ex == null ? null : ex.getClass().getName(),
+                duration,
+                Thread.currentThread().getName(),
+                System.currentTimeMillis());
+    }
+
+    @Nullable
+    private static PhoneNumber.ParseException.ErrorType errorTypeOf(@Nullable Exception ex) {
+        if (ex instanceof JsonParseException && ex.getCause() instanceof PhoneNumber.ParseException) {
+            return ((PhoneNumber.ParseException) ex.getCause()).getErrorType();
+        }
+        if (ex instanceof PhoneNumber.ParseException) {
+            return ((PhoneNumber.ParseException) ex).getErrorType();
+        }
+        return null;
+    }
+
+    /**
+     * Masks every digit except the first and the last two, so the calling code and the shape remain visible.
+     */
+    @Nonnull
+    private static String redact(@Nonnull String input) {
+        int digits = 0;
+        for (int i = 0; i < input.length(); i++) {
+            if (Character.isDigit(input.charAt(i))) {
+                digits++;
+            }
+        }
+        StringBuilder redacted = new StringBuilder(input.length());
+        int digit = 0;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isDigit(c)) {
+                digit++;
+                redacted.append(digit == 1 || digit > digits - 2 ? c : '*');
+            } else {
+                redacted.append(c);
+            }
+        }
+        return redacted.toString();
+    }
+
+    private long hash(@Nonnull String input) {
+        // FNV-1a with a random offset basis, then the MurmurHash3 finalizer
+        long hash = hashKey ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < input.length(); i++) {
+            hash = (hash ^ input.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+}
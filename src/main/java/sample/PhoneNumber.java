@@ -46,6 +46,30 @@ public final class PhoneNumber {
         @Nonnull
         String toReadableString();
 
+        /**
+         * @return the national significant number without the leading zeros
+         */
+        long getNationalNumber();
+
+        /**
+         * @return count of zeros before the national number (like in Italy) or 0 if there is none
+         */
+        int getNumberOfLeadingZeros();
+
+        /**
+         * @return the extension or empty string if there is none
+         */
+        @Nonnull
+        String getExtension();
+
+        /**
+         * Stable 64-bit fingerprint of the E164 number (extension is not included).
+         * Unlike {@link #hashCode} it never changes between JVMs or library versions,
+         * so it's safe to persist or to use for partitioning.
+         * @return well-distributed hash of the calling code and the national significant number
+         */
+        long fingerprint();
+
     }
 
     @Builder
@@ -176,14 +200,135 @@ public final class PhoneNumber {
         return phoneNumber;
     }
 
+    /**
+     * Creates a present phone number from the parts of an already parsed one, without parsing.
+     * @param rawText the original raw text or null if it's the E164 string (only if there is no extension)
+     * @see Data
+     */
+    @Nonnull
+    static PhoneNumber of(
+            @Nullable String rawText, int callingCode, int leadingZeros, long nationalNumber, @Nonnull String extension) {
+        ParsedNumber number = new ParsedNumber(callingCode, leadingZeros, nationalNumber, extension);
+        if (rawText == null) {
+            return new PhoneNumber(new PresentStrategy(number));
+        }
+        return new PhoneNumber(rawText, new PresentStrategy(number));
+    }
+
+    /**
+     * Parses the optional string as international phone number like {@link #parseOptional},
+     * but appends it to the array instead of creating the phone number.
+     * @throws ParseException if failed to parse the text; nothing is appended
+     */
+    static void parseOptionalInto(@Nullable String numberText, @Nonnull PhoneNumberArray array) throws ParseException {
+        if (StringUtils.isEmpty(numberText)) {
+            array.addEmpty();
+            return;
+        }
+        Phonenumber.PhoneNumber number = ParsedNumber.parseInternational(numberText);
+        array.addParsed(numberText, number.getCountryCode(), ParsedNumber.getNumberOfLeadingZeros(number),
+                number.getNationalNumber(), number.getExtension());
+    }
+
+    /**
+     * Creates an absent phone number that keeps the raw text which is known to be invalid, without parsing.
+     */
+    @Nonnull
+    static PhoneNumber unparsed(@Nullable String rawText) {
+        return new PhoneNumber(rawText, AbsentStrategy.INSTANCE);
+    }
+
+    /**
+     * @return the libphonenumber representation of the data; do not modify it
+     */
     @Nonnull
+    static Phonenumber.PhoneNumber toLibraryNumber(@Nonnull Data data) {
+        if (data instanceof ParsedNumber) {
+            return ((ParsedNumber) data).internal;
+        }
+        ParsedNumber number = new ParsedNumber(
+                data.getCountry().getCallingCode(), data.getNumberOfLeadingZeros(), data.getNationalNumber(), data.getExtension());
+        return number.internal;
+    }
+
+    /**
+     * @return E164 encoded string built from the parts, without the formatter
+     */
+    @Nonnull
+    static String toIsoString(int callingCode, int leadingZeros, long nationalNumber) {
+        StringBuilder builder = new StringBuilder(20).append('+').append(callingCode);
+        for (int i = 0; i < leadingZeros; i++) {
+            builder.append('0');
+        }
+        return builder.append(nationalNumber).toString();
+    }
+
+    /**
+     * @return true if the text is the E164 string of the data (compared without formatting)
+     */
+    static boolean isIsoString(@Nonnull String text, @Nonnull Data data) {
+        return isIsoString(text, data.getCountry().getCallingCode(), data.getNumberOfLeadingZeros(),
+                data.getNationalNumber(), data.getExtension());
+    }
+
+    /**
+     * @return true if the text is the E164 string of the parts (compared without formatting)
+     */
+    static boolean isIsoString(
+            @Nonnull String text, int callingCode, int leadingZeros, long nationalNumber, @Nonnull String extension) {
+        if (!extension.isEmpty()) {
+            return false;
+        }
+        int position = matchDigitsBackwards(text, text.length(), nationalNumber);
+        for (int i = 0; i < leadingZeros && position > 0; i++) {
+            position = text.charAt(position - 1) == '0' ? position - 1 : -1;
+        }
+        position = matchDigitsBackwards(text, position, callingCode);
+        return position == 1 && text.charAt(0) == '+';
+    }
+
+    /**
+     * @return start of the digits of the value ending at the given position or -1 if they do not match
+     */
+    private static int matchDigitsBackwards(@Nonnull String text, int end, long value) {
+        int position = end;
+        do {
+            if (position <= 0 || text.charAt(position - 1) != (char) ('0' + value % 10)) {
+                return -1;
+            }
+            position--;
+            value /= 10;
+        } while (value > 0);
+        return position;
+    }
+
+    /**
+     * The original text or null if it's the same as the E164 string of the data, so it's not stored twice.
+     * Deliberately trades heap for CPU: a kept number is about 65 bytes smaller (String and its char array,
+     * 66 bytes per number measured by PhoneNumberHeapTest), but {@link #toRawString} builds a new string on every call.
+     */
+    @Nullable
     private final String rawText;
 
     @Nonnull
     private final Strategy delegate;
 
     private PhoneNumber(@Nullable String rawText, @Nonnull Strategy delegate) {
-        this.rawText = StringUtils.isEmpty(rawText) ? "" : rawText;
+        if (StringUtils.isEmpty(rawText)) {
+            this.rawText = "";
+        } else if (delegate.isPresent() && isIsoString(rawText, delegate.get())) {
+            this.rawText = null;
+        } else {
+            this.rawText = rawText;
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * The raw text is the E164 string of the data.
+     */
+    private PhoneNumber(@Nonnull PresentStrategy delegate) {
+        this.rawText = null;
         this.delegate = delegate;
     }
 
@@ -210,11 +355,11 @@ public final class PhoneNumber {
     @Override
     public String toString() {
         if (!delegate.isPresent()) {
-            return String.format("PhoneNumber(rawText='%s')", rawText);
+            return String.format("PhoneNumber(rawText='%s')", toRawString());
         }
         String isoString = delegate.get().toIsoString();
         Country country = delegate.get().getCountry();
-        return String.format("PhoneNumber(rawText='%s', isoString='%s', country='%s')", rawText, isoString, country);
+        return String.format("PhoneNumber(rawText='%s', isoString='%s', country='%s')", toRawString(), isoString, country);
     }
 
     /**
@@ -222,7 +367,11 @@ public final class PhoneNumber {
      */
     @Nonnull
     public String toRawString() {
-        return rawText;
+        if (rawText != null) {
+            return rawText;
+        }
+        Data data = delegate.get();
+        return toIsoString(data.getCountry().getCallingCode(), data.getNumberOfLeadingZeros(), data.getNationalNumber());
     }
 
     /**
@@ -239,7 +388,8 @@ public final class PhoneNumber {
      * @return true if the raw data is blank
      */
     public boolean hasEmptyRaw() {
-        return StringUtils.isBlank(toRawString());
+        // the E164 string is never blank
+        return rawText != null && StringUtils.isBlank(rawText);
     }
 
     /**
@@ -411,12 +561,13 @@ public final class PhoneNumber {
 
         private static final PhoneNumberUtil util = PhoneNumberUtil.getInstance();
 
+        private static final long FINGERPRINT_SEED = 0x9e3779b97f4a7c15L;
+
         private final Phonenumber.PhoneNumber internal;
         private final Country country;
 
         public ParsedNumber(@Nonnull String numberText) throws ParseException {
-            checkCountryCodeInNumber(numberText);
-            this.internal = parse(numberText);
+            this.internal = parseInternational(numberText);
             this.country = createCountry(internal);
         }
 
@@ -425,6 +576,41 @@ public final class PhoneNumber {
             this.country = createCountry(internal);
         }
 
+        public ParsedNumber(int callingCode, int leadingZeros, long nationalNumber, @Nonnull String extension) {
+            // set the same fields as PhoneNumberUtil.parse, so equals works with the parsed numbers
+            this.internal = new Phonenumber.PhoneNumber()
+                    .setCountryCode(callingCode)
+                    .setNationalNumber(nationalNumber);
+            if (leadingZeros > 0) {
+                internal.setItalianLeadingZero(true);
+                if (leadingZeros != 1) {
+                    internal.setNumberOfLeadingZeros(leadingZeros);
+                }
+            }
+            if (!extension.isEmpty()) {
+                internal.setExtension(extension);
+            }
+            this.country = createCountry(internal);
+        }
+
+        /**
+         * @return the parsed international number, without creating the data
+         */
+        @Nonnull
+        private static Phonenumber.PhoneNumber parseInternational(@Nonnull String numberText) throws ParseException {
+            checkCountryCodeInNumber(numberText);
+            try {
+                return util.parse(numberText, null);
+            } catch (NumberParseException ex) {
+                throw fromLibError(ex);
+            }
+        }
+
+        private static int getNumberOfLeadingZeros(@Nonnull Phonenumber.PhoneNumber number) {
+            // the same rule as PhoneNumberUtil.getNationalSignificantNumber
+            return number.isItalianLeadingZero() ? number.getNumberOfLeadingZeros() : 0;
+        }
+
         private static void checkCountryCodeInNumber(@Nonnull String numberText) throws ParseException {
             if (!numberText.startsWith("+") && !numberText.startsWith("00")) {
                 throw new ParseException(
@@ -442,15 +628,6 @@ public final class PhoneNumber {
                     .build();
         }
 
-        @Nonnull
-        private Phonenumber.PhoneNumber parse(@Nonnull String numberText) throws ParseException {
-            try {
-                return util.parse(numberText, null);
-            } catch (NumberParseException ex) {
-                throw fromLibError(ex);
-            }
-        }
-
         @Nonnull
         private Phonenumber.PhoneNumber parse(@Nonnull String numberText, @Nonnull String countryCode) throws ParseException {
             try {
@@ -460,11 +637,11 @@ public final class PhoneNumber {
             }
         }
 
-        private ParseException fromLibError(NumberParseException ex) {
+        private static ParseException fromLibError(NumberParseException ex) {
             return new ParseException(fromLibErrorType(ex.getErrorType()), ex);
         }
 
-        private ParseException.ErrorType fromLibErrorType(@Nullable NumberParseException.ErrorType type) {
+        private static ParseException.ErrorType fromLibErrorType(@Nullable NumberParseException.ErrorType type) {
             if (type != null) {
                 switch (type) {
                     case INVALID_COUNTRY_CODE:
@@ -505,6 +682,42 @@ public final class PhoneNumber {
             return util.isValidNumber(internal);
         }
 
+        @Override
+        public long fingerprint() {
+            return fingerprint(internal.getCountryCode(), getNumberOfLeadingZeros(), internal.getNationalNumber());
+        }
+
+        @Override
+        public long getNationalNumber() {
+            return internal.getNationalNumber();
+        }
+
+        @Override
+        public int getNumberOfLeadingZeros() {
+            return getNumberOfLeadingZeros(internal);
+        }
+
+        @Nonnull
+        @Override
+        public String getExtension() {
+            return internal.getExtension();
+        }
+
+        /**
+         * Do not change the algorithm, persisted fingerprints depend on it!
+         */
+        private static long fingerprint(int callingCode, int leadingZeros, long nationalNumber) {
+            long hash = mix(FINGERPRINT_SEED ^ nationalNumber);
+            return mix(hash ^ (((long) callingCode << 8) | leadingZeros));
+        }
+
+        private static long mix(long value) {
+            // finalizer of MurmurHash3
+            value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+            value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return value ^ (value >>> 33);
+        }
+
         @Nonnull
         @Override
         public Country getCountry() {
@@ -0,0 +1,233 @@
+package sample;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Compact list of phone numbers backed by primitive arrays.
+ * Present numbers are stored as their parts, the raw text is kept only if it differs from the E164 string.
+ * {@link PhoneNumber} objects are created only on element access, so prefer the indexed methods
+ * (like {@link #isPresent(int)}) when the element itself is not needed.
+ * Blank raw texts are not kept, these elements are the same as {@link PhoneNumber#absent()}.
+ * Not thread-safe.
+ * @see PhoneNumberArrayTypeAdapterFactory
+ */
+public final class PhoneNumberArray extends AbstractList<PhoneNumber> implements RandomAccess {
+
+    private static final byte EMPTY = 0;
+    private static final byte UNPARSED = 1;
+    private static final byte PARSED = 2;
+
+    private int size;
+
+    @Nonnull
+    private byte[] states;
+
+    @Nonnull
+    private short[] callingCodes;
+
+    @Nonnull
+    private byte[] leadingZeros;
+
+    @Nonnull
+    private long[] nationalNumbers;
+
+    /**
+     * Raw text of the elements that are not stored as E164 strings; allocated on demand
+     */
+    @Nullable
+    private String[] rawTexts;
+
+    /**
+     * Extension of the numbers that have one; allocated on demand
+     */
+    @Nullable
+    private String[] extensions;
+
+    public PhoneNumberArray() {
+        this(16);
+    }
+
+    public PhoneNumberArray(int initialCapacity) {
+        Validate.isTrue(initialCapacity >= 0, "Initial capacity can not be negative");
+        this.states = new byte[initialCapacity];
+        this.callingCodes = new short[initialCapacity];
+        this.leadingZeros = new byte[initialCapacity];
+        this.nationalNumbers = new long[initialCapacity];
+    }
+
+    @Nonnull
+    public static PhoneNumberArray of(@Nonnull Collection<PhoneNumber> phoneNumbers) {
+        PhoneNumberArray array = new PhoneNumberArray(phoneNumbers.size());
+        array.addAll(phoneNumbers);
+        return array;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Materializes the phone number.
+     */
+    @Nonnull
+    @Override
+    public PhoneNumber get(int index) {
+        checkIndex(index);
+        switch (states[index]) {
+            case PARSED:
+                return PhoneNumber.of(
+                        rawTextAt(index), callingCodes[index], leadingZeros[index], nationalNumbers[index], extensionAt(index));
+            case UNPARSED:
+                return PhoneNumber.unparsed(rawTextAt(index));
+            default:
+                return PhoneNumber.absent();
+        }
+    }
+
+    /**
+     * Appends the phone number.
+     * @throws NullPointerException if the phone number is null (use {@link PhoneNumber#absent()})
+     */
+    @Override
+    public boolean add(@Nonnull PhoneNumber phoneNumber) {
+        Validate.notNull(phoneNumber, "null phone number");
+        if (phoneNumber.isPresent()) {
+            addParsed(phoneNumber.toRawString(), phoneNumber.get());
+        } else if (phoneNumber.hasRaw()) {
+            addUnparsed(phoneNumber.toRawString());
+        } else {
+            addEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * @see PhoneNumber#isPresent()
+     */
+    public boolean isPresent(int index) {
+        checkIndex(index);
+        return states[index] == PARSED;
+    }
+
+    /**
+     * @see PhoneNumber#hasEmptyRaw()
+     */
+    public boolean hasEmptyRaw(int index) {
+        checkIndex(index);
+        return states[index] == EMPTY;
+    }
+
+    /**
+     * @see PhoneNumber#hasAbsentRaw()
+     */
+    public boolean hasAbsentRaw(int index) {
+        checkIndex(index);
+        return states[index] == UNPARSED;
+    }
+
+    /**
+     * @return the raw string or empty text, without creating the phone number
+     * @see PhoneNumber#toRawString()
+     */
+    @Nonnull
+    public String toRawString(int index) {
+        checkIndex(index);
+        if (states[index] == EMPTY) {
+            return "";
+        }
+        String rawText = rawTextAt(index);
+        if (rawText != null) {
+            return rawText;
+        }
+        return PhoneNumber.toIsoString(callingCodes[index], leadingZeros[index], nationalNumbers[index]);
+    }
+
+    void addEmpty() {
+        ensureCapacity(size + 1);
+        modCount++;
+        states[size++] = EMPTY;
+    }
+
+    void addUnparsed(@Nonnull String rawText) {
+        ensureCapacity(size + 1);
+        modCount++;
+        setRawText(size, rawText);
+        states[size++] = UNPARSED;
+    }
+
+    void addParsed(@Nonnull String rawText, @Nonnull PhoneNumber.Data data) {
+        addParsed(rawText, data.getCountry().getCallingCode(), data.getNumberOfLeadingZeros(),
+                data.getNationalNumber(), data.getExtension());
+    }
+
+    void addParsed(
+            @Nonnull String rawText, int callingCode, int leadingZeros, long nationalNumber, @Nonnull String extension) {
+        ensureCapacity(size + 1);
+        modCount++;
+        callingCodes[size] = (short) callingCode;
+        this.leadingZeros[size] = (byte) leadingZeros;
+        nationalNumbers[size] = nationalNumber;
+        if (!extension.isEmpty()) {
+            if (extensions == null) {
+                extensions = new String[states.length];
+            }
+            extensions[size] = extension;
+        }
+        if (StringUtils.isNotEmpty(rawText)
+                && !PhoneNumber.isIsoString(rawText, callingCode, leadingZeros, nationalNumber, extension)) {
+            setRawText(size, rawText);
+        }
+        states[size++] = PARSED;
+    }
+
+    private void setRawText(int index, @Nonnull String rawText) {
+        if (rawTexts == null) {
+            rawTexts = new String[states.length];
+        }
+        rawTexts[index] = rawText;
+    }
+
+    @Nullable
+    private String rawTextAt(int index) {
+        return rawTexts == null ? null : rawTexts[index];
+    }
+
+    @Nonnull
+    private String extensionAt(int index) {
+        String extension = extensions == null ? null : extensions[index];
+        return extension == null ? "" : extension;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= states.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, states.length * 2);
+        states = Arrays.copyOf(states, newCapacity);
+        callingCodes = Arrays.copyOf(callingCodes, newCapacity);
+        leadingZeros = Arrays.copyOf(leadingZeros, newCapacity);
+        nationalNumbers = Arrays.copyOf(nationalNumbers, newCapacity);
+        if (rawTexts != null) {
+            rawTexts = Arrays.copyOf(rawTexts, newCapacity);
+        }
+        if (extensions != null) {
+            extensions = Arrays.copyOf(extensions, newCapacity);
+        }
+    }
+
+}
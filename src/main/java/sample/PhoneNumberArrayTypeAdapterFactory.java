@@ -0,0 +1,92 @@
+package sample;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import lombok.AllArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * Reads JSON arrays of phone numbers directly into {@link PhoneNumberArray} and writes them out of it,
+ * so no {@link PhoneNumber} is kept per element (and none is created with {@link DefaultPhoneNumberParser}).
+ * Elements are handled like {@link PhoneNumberTypeAdapterFactory} does.
+ */
+@AllArgsConstructor
+public final class PhoneNumberArrayTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Nonnull
+    private final PhoneNumberParser parser;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != PhoneNumberArray.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new PhoneNumberArrayTypeAdapter(parser);
+    }
+
+    @AllArgsConstructor
+    private static final class PhoneNumberArrayTypeAdapter extends TypeAdapter<PhoneNumberArray> {
+
+        @Nonnull
+        private final PhoneNumberParser parser;
+
+        @Override
+        public void write(JsonWriter out, PhoneNumberArray src) throws IOException {
+            if (src == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int i = 0; i < src.size(); i++) {
+                if (src.hasEmptyRaw(i)) {
+                    out.nullValue();
+                } else {
+                    // valid or invalid number; send it as-is
+                    out.value(src.toRawString(i));
+                }
+            }
+            out.endArray();
+        }
+
+        @Override
+        public PhoneNumberArray read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            PhoneNumberArray array = new PhoneNumberArray();
+            in.beginArray();
+            while (in.hasNext()) {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    array.addEmpty();
+                    continue;
+                }
+                String text = in.nextString();
+                if (StringUtils.isBlank(text)) {
+                    array.addEmpty();
+                    continue;
+                }
+                try {
+                    parser.parseInto(text, array);
+                } catch (PhoneNumber.ParseException ex) {
+                    throw new JsonParseException(ex);
+                }
+            }
+            in.endArray();
+            return array;
+        }
+
+    }
+
+}
@@ -0,0 +1,277 @@
+package sample;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of phone numbers to skip most lookups of an exact store (for example a suppression list).
+ * {@link #mightContain} never returns false for an added number,
+ * and returns true for a missing number with the configured probability.
+ * Keyed on {@link PhoneNumber.Data#fingerprint}, so numbers are not formatted and a saved filter works in any JVM.
+ * Thread-safe: numbers can be added and checked concurrently.
+ * A filter opened from a file is memory-mapped and read-only.
+ */
+public final class PhoneNumberBloomFilter {
+
+    private static final int FILE_MAGIC = 0x504e4246; // PNBF
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 24;
+    private static final int WRITE_BATCH_SIZE = 8192;
+
+    private interface Bits {
+
+        long bitCount();
+
+        boolean get(long index);
+
+        void set(long index);
+
+        long word(int index);
+
+    }
+
+    @Nonnull
+    private final Bits bits;
+
+    private final int hashCount;
+
+    private PhoneNumberBloomFilter(@Nonnull Bits bits, int hashCount) {
+        this.bits = bits;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * @param expectedInsertions count of numbers to add
+     * @param falsePositiveRate probability of {@link #mightContain} returning true for a missing number
+     *                          after adding the expected count of numbers
+     */
+    @Nonnull
+    public static PhoneNumberBloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        Validate.isTrue(expectedInsertions > 0, "Expected insertions must be positive");
+        Validate.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "False positive rate must be between 0 and 1");
+        double optimalBits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long words = Math.max(1, (long) Math.ceil(optimalBits / Long.SIZE));
+        Validate.isTrue(words * Long.BYTES <= Integer.MAX_VALUE - FILE_HEADER_SIZE, "Filter is too large");
+        long bitCount = words * Long.SIZE;
+        int hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        return new PhoneNumberBloomFilter(new AtomicBits((int) words), hashCount);
+    }
+
+    /**
+     * Creates a filter of the present numbers of the stream. The stream can be parallel.
+     */
+    @Nonnull
+    public static PhoneNumberBloomFilter build(
+            @Nonnull Stream<PhoneNumber> phoneNumbers, long expectedInsertions, double falsePositiveRate) {
+        PhoneNumberBloomFilter filter = create(expectedInsertions, falsePositiveRate);
+        phoneNumbers.forEach(filter::put);
+        return filter;
+    }
+
+    /**
+     * Opens a filter written by {@link #writeTo}. The file is memory-mapped, it's not loaded into the heap.
+     * @throws IOException if failed to read the file or it's not a filter
+     */
+    @Nonnull
+    public static PhoneNumberBloomFilter open(@Nonnull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < FILE_HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC) {
+                throw new IOException("Not a phone number filter: " + file);
+            }
+            if (buffer.getInt(4) != FILE_VERSION) {
+                throw new IOException("Unsupported phone number filter version: " + buffer.getInt(4));
+            }
+            int hashCount = buffer.getInt(8);
+            long bitCount = buffer.getLong(16);
+            if (hashCount <= 0 || bitCount <= 0 || bitCount % Long.SIZE != 0
+                    || bitCount / Long.SIZE != (buffer.limit() - FILE_HEADER_SIZE) / Long.BYTES) {
+                throw new IOException("Corrupt phone number filter: " + file);
+            }
+            buffer.position(FILE_HEADER_SIZE);
+            return new PhoneNumberBloomFilter(new MappedBits(buffer.slice().asLongBuffer()), hashCount);
+        }
+    }
+
+    /**
+     * Adds the number to the filter. Absent numbers are ignored.
+     * @return true if the number was present
+     * @throws UnsupportedOperationException if the filter is opened from a file
+     */
+    public boolean put(@Nonnull PhoneNumber phoneNumber) {
+        if (phoneNumber.isAbsent()) {
+            return false;
+        }
+        put(phoneNumber.get());
+        return true;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the filter is opened from a file
+     */
+    public void put(@Nonnull PhoneNumber.Data data) {
+        long fingerprint = data.fingerprint();
+        for (int i = 0; i < hashCount; i++) {
+            bits.set(bitIndex(fingerprint, i));
+        }
+    }
+
+    /**
+     * Adds the E164 number to the filter. Invalid and empty texts are ignored.
+     * @return true if the text is a phone number
+     * @throws UnsupportedOperationException if the filter is opened from a file
+     */
+    public boolean putRaw(@Nullable String numberText) {
+        return put(PhoneNumber.raw(numberText));
+    }
+
+    /**
+     * @return false if the number is definitely not added; true if it's probably added
+     */
+    public boolean mightContain(@Nullable PhoneNumber phoneNumber) {
+        return PhoneNumber.isPresent(phoneNumber) && mightContain(phoneNumber.get());
+    }
+
+    /**
+     * @return false if the number is definitely not added; true if it's probably added
+     */
+    public boolean mightContain(@Nonnull PhoneNumber.Data data) {
+        long fingerprint = data.fingerprint();
+        for (int i = 0; i < hashCount; i++) {
+            if (!bits.get(bitIndex(fingerprint, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the filter into the file atomically, so the file can be replaced even if it's opened.
+     * @throws IOException if failed to write the file
+     */
+    public void writeTo(@Nonnull Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(hashCount).putInt(0).putLong(bits.bitCount());
+            header.flip();
+            writeFully(channel, header);
+            ByteBuffer batch = ByteBuffer.allocate(WRITE_BATCH_SIZE * Long.BYTES);
+            int words = (int) (bits.bitCount() / Long.SIZE);
+            for (int i = 0; i < words; i++) {
+                if (!batch.hasRemaining()) {
+                    batch.flip();
+                    writeFully(channel, batch);
+                    batch.clear();
+                }
+                batch.putLong(bits.word(i));
+            }
+            batch.flip();
+            writeFully(channel, batch);
+            channel.force(true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Double hashing (Kirsch and Mitzenmacher) with the two halves of the fingerprint.
+     */
+    private long bitIndex(long fingerprint, int i) {
+        long hash1 = fingerprint & 0xffffffffL;
+        long hash2 = (fingerprint >>> 32) | 1; // never 0, so the indexes differ
+        return (hash1 + i * hash2) % bits.bitCount();
+    }
+
+    private static final class AtomicBits implements Bits {
+
+        @Nonnull
+        private final AtomicLongArray words;
+
+        private AtomicBits(int words) {
+            this.words = new AtomicLongArray(words);
+        }
+
+        @Override
+        public long bitCount() {
+            return (long) words.length() * Long.SIZE;
+        }
+
+        @Override
+        public boolean get(long index) {
+            return (words.get((int) (index >>> 6)) & (1L << index)) != 0;
+        }
+
+        @Override
+        public void set(long index) {
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    return;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+
+        @Override
+        public long word(int index) {
+            return words.get(index);
+        }
+
+    }
+
+    private static final class MappedBits implements Bits {
+
+        @Nonnull
+        private final LongBuffer words;
+
+        private MappedBits(@Nonnull LongBuffer words) {
+            this.words = words;
+        }
+
+        @Override
+        public long bitCount() {
+            return (long) words.limit() * Long.SIZE;
+        }
+
+        @Override
+        public boolean get(long index) {
+            return (words.get((int) (index >>> 6)) & (1L << index)) != 0;
+        }
+
+        @Override
+        public void set(long index) {
+            throw new UnsupportedOperationException("Filter opened from a file is read-only");
+        }
+
+        @Override
+        public long word(int index) {
+            return words.get(index);
+        }
+
+    }
+
+}
@@ -8,4 +8,13 @@ public interface PhoneNumberParser {
     @Nonnull
     PhoneNumber parse(@Nullable String text) throws PhoneNumber.ParseException;
 
+    /**
+     * Parses the text like {@link #parse} and appends the result to the array.
+     * Override it if the parser can append without creating the phone number.
+     * @throws PhoneNumber.ParseException if failed to parse the text; nothing is appended
+     */
+    default void parseInto(@Nullable String text, @Nonnull PhoneNumberArray array) throws PhoneNumber.ParseException {
+        array.add(parse(text));
+    }
+
 }
@@ -0,0 +1,63 @@
+package sample;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Assigns phone numbers to a fixed number of partitions (shards).
+ * Based on {@link PhoneNumber.Data#fingerprint}, so the assignment is stable across JVMs
+ * and it does not format the number.
+ * Uses jump consistent hashing: when the partition count grows from N to N+1,
+ * only 1/(N+1) of the numbers move to another partition.
+ */
+public final class PhoneNumberPartitioner {
+
+    private final int partitions;
+
+    public PhoneNumberPartitioner(int partitions) {
+        Validate.isTrue(partitions > 0, "Partition count must be positive");
+        this.partitions = partitions;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * @return the partition in range [0, partitions)
+     * @throws NullPointerException if the phone number is absent
+     */
+    public int partition(@Nonnull PhoneNumber phoneNumber) {
+        return partition(phoneNumber.get());
+    }
+
+    /**
+     * @return the partition in range [0, partitions)
+     */
+    public int partition(@Nonnull PhoneNumber.Data data) {
+        return partition(data.fingerprint());
+    }
+
+    /**
+     * @return the partition in range [0, partitions)
+     */
+    public int partition(long fingerprint) {
+        return jumpConsistentHash(fingerprint, partitions);
+    }
+
+    /**
+     * Lamping and Veach: A Fast, Minimal Memory, Consistent Hash Algorithm
+     */
+    private static int jumpConsistentHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+}
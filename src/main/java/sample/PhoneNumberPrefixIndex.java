@@ -0,0 +1,389 @@
+package sample;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sorted set of E164 numbers for prefix (autocomplete) lookups.
+ * Every number is stored as one {@code long}: the digits right-padded to 15 digits, then the digit count.
+ * This order is the same as the lexicographic order of the E164 strings,
+ * so a prefix is a contiguous range that can be found with binary search.
+ * New numbers are kept in a small sorted delta next to the sorted base and both are searched,
+ * so a query after an add does not copy the base; the delta is merged into the base when it grows too large.
+ * The index can be written to a file and opened as a memory-mapped, read-only base.
+ */
+public final class PhoneNumberPrefixIndex {
+
+    /**
+     * Max digit count of an E164 number (calling code and national significant number together)
+     */
+    public static final int MAX_DIGITS = 15;
+
+    private static final int FILE_MAGIC = 0x504e5058; // PNPX
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 16;
+    private static final int WRITE_BATCH_SIZE = 8192;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Max count of the added numbers kept besides the base; more are merged into the base
+     */
+    static final int MAX_DELTA_SIZE = 65536;
+
+    /**
+     * Sorted distinct numbers; memory-mapped if the index is opened from a file
+     */
+    @Nonnull
+    private LongBuffer base;
+
+    /**
+     * Sorted distinct numbers added since the last merge, none of them is in the base
+     */
+    @Nonnull
+    private long[] delta = new long[16];
+
+    private int deltaSize;
+
+    public PhoneNumberPrefixIndex() {
+        this(LongBuffer.wrap(new long[0]));
+    }
+
+    private PhoneNumberPrefixIndex(@Nonnull LongBuffer base) {
+        this.base = base;
+    }
+
+    /**
+     * Opens an index written by {@link #writeTo}. The file is memory-mapped, it's not loaded into the heap.
+     * Numbers added later are kept in the heap; once there are more than {@link #MAX_DELTA_SIZE} of them,
+     * they are merged with the mapped numbers into a heap copy.
+     * @throws IOException if failed to read the file or it's not a prefix index
+     */
+    @Nonnull
+    public static PhoneNumberPrefixIndex open(@Nonnull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < FILE_HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC) {
+                throw new IOException("Not a phone number prefix index: " + file);
+            }
+            if (buffer.getInt(4) != FILE_VERSION) {
+                throw new IOException("Unsupported phone number prefix index version: " + buffer.getInt(4));
+            }
+            long count = buffer.getLong(8);
+            if (count < 0 || count != (buffer.limit() - FILE_HEADER_SIZE) / Long.BYTES) {
+                throw new IOException("Corrupt phone number prefix index: " + file);
+            }
+            buffer.position(FILE_HEADER_SIZE);
+            return new PhoneNumberPrefixIndex(buffer.slice().asLongBuffer());
+        }
+    }
+
+    /**
+     * Adds the number to the index. Absent numbers are ignored.
+     * @return true if the number was present
+     * @throws IllegalArgumentException if the number has more than {@link #MAX_DIGITS} digits
+     */
+    public synchronized boolean add(@Nonnull PhoneNumber phoneNumber) {
+        if (phoneNumber.isAbsent()) {
+            return false;
+        }
+        long key = encode(phoneNumber.get());
+        int position = search(delta, 0, deltaSize, key);
+        if ((position < deltaSize && delta[position] == key) || contains(base, key)) {
+            return true;
+        }
+        if (deltaSize == delta.length) {
+            delta = Arrays.copyOf(delta, delta.length * 2);
+        }
+        System.arraycopy(delta, position, delta, position + 1, deltaSize - position);
+        delta[position] = key;
+        deltaSize++;
+        if (deltaSize > MAX_DELTA_SIZE) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Adds every present number to the index. The numbers are sorted together, not one by one.
+     */
+    public synchronized void addAll(@Nonnull Iterable<PhoneNumber> phoneNumbers) {
+        long[] keys = new long[16];
+        int count = 0;
+        for (PhoneNumber phoneNumber : phoneNumbers) {
+            if (phoneNumber.isPresent()) {
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, keys.length * 2);
+                }
+                keys[count++] = encode(phoneNumber.get());
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        long[] merged = new long[deltaSize + count];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < deltaSize || j < count) {
+            boolean fromDelta = j == count || (i < deltaSize && delta[i] <= keys[j]);
+            long next = fromDelta ? delta[i++] : keys[j++];
+            // the delta is never in the base
+            if ((size == 0 || merged[size - 1] != next) && (fromDelta || !contains(base, next))) {
+                merged[size++] = next;
+            }
+        }
+        delta = merged;
+        deltaSize = size;
+        if (deltaSize > MAX_DELTA_SIZE) {
+            compact();
+        }
+    }
+
+    /**
+     * @return count of distinct numbers in the index
+     */
+    public synchronized int size() {
+        return base.limit() + deltaSize;
+    }
+
+    /**
+     * @param prefix digits of the E164 number (with or without the leading +)
+     * @return count of numbers starting with the prefix
+     */
+    public synchronized int count(@Nonnull String prefix) {
+        Range range = new Range(prefix);
+        return range.baseTo - range.baseFrom + range.deltaTo - range.deltaFrom;
+    }
+
+    /**
+     * @param prefix digits of the E164 number (with or without the leading +)
+     * @param offset count of matching numbers to skip
+     * @param limit max count of numbers to return
+     * @return E164 strings of the matching numbers in lexicographic order
+     */
+    @Nonnull
+    public synchronized List<String> find(@Nonnull String prefix, int offset, int limit) {
+        Validate.isTrue(offset >= 0, "Offset can not be negative");
+        Validate.isTrue(limit >= 0, "Limit can not be negative");
+        Range range = new Range(prefix);
+        int baseCount = range.baseTo - range.baseFrom;
+        int deltaCount = range.deltaTo - range.deltaFrom;
+        if (baseCount + deltaCount <= offset || limit == 0) {
+            return Collections.emptyList();
+        }
+        // skip the offset in both ranges, then merge them
+        int i = range.baseFrom + skippedInBase(range, offset);
+        int j = range.deltaFrom + offset - (i - range.baseFrom);
+        List<String> result = new ArrayList<>(Math.min(limit, baseCount + deltaCount - offset));
+        while (result.size() < limit && (i < range.baseTo || j < range.deltaTo)) {
+            if (j == range.deltaTo || (i < range.baseTo && base.get(i) < delta[j])) {
+                result.add(decode(base.get(i++)));
+            } else {
+                result.add(decode(delta[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the index into the file atomically, so the file can be replaced even if it's opened.
+     * The added numbers are merged while they are written, the index itself is not changed.
+     * @throws IOException if failed to write the file
+     */
+    public synchronized void writeTo(@Nonnull Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putLong(size());
+            header.flip();
+            writeFully(channel, header);
+            ByteBuffer batch = ByteBuffer.allocate(WRITE_BATCH_SIZE * Long.BYTES);
+            int i = 0;
+            int j = 0;
+            while (i < base.limit() || j < deltaSize) {
+                if (!batch.hasRemaining()) {
+                    batch.flip();
+                    writeFully(channel, batch);
+                    batch.clear();
+                }
+                boolean fromBase = j == deltaSize || (i < base.limit() && base.get(i) < delta[j]);
+                batch.putLong(fromBase ? base.get(i++) : delta[j++]);
+            }
+            batch.flip();
+            writeFully(channel, batch);
+            channel.force(true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Merges the delta into a new base.
+     */
+    private void compact() {
+        long[] merged = new long[base.limit() + deltaSize];
+        int i = 0;
+        int j = 0;
+        for (int size = 0; size < merged.length; size++) {
+            boolean fromBase = j == deltaSize || (i < base.limit() && base.get(i) < delta[j]);
+            merged[size] = fromBase ? base.get(i++) : delta[j++];
+        }
+        base = LongBuffer.wrap(merged);
+        delta = new long[16];
+        deltaSize = 0;
+    }
+
+    /**
+     * @return count of the base numbers among the first skipped numbers of the merged ranges
+     */
+    private int skippedInBase(@Nonnull Range range, int skipped) {
+        int low = Math.max(0, skipped - (range.deltaTo - range.deltaFrom));
+        int high = Math.min(skipped, range.baseTo - range.baseFrom);
+        // the smallest count, after which the next base number is greater than the last skipped delta number
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int deltaSkipped = skipped - mid;
+            if (deltaSkipped == 0 || base.get(range.baseFrom + mid) > delta[range.deltaFrom + deltaSkipped - 1]) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Numbers starting with a prefix, in the base and in the delta
+     */
+    private final class Range {
+
+        private final int baseFrom;
+        private final int baseTo;
+        private final int deltaFrom;
+        private final int deltaTo;
+
+        private Range(@Nonnull String prefix) {
+            String digits = digitsOf(prefix);
+            long lowerKey = lowerKey(digits);
+            long upperKey = upperKey(digits);
+            this.baseFrom = search(base, lowerKey);
+            this.baseTo = search(base, upperKey);
+            this.deltaFrom = search(delta, 0, deltaSize, lowerKey);
+            this.deltaTo = search(delta, deltaFrom, deltaSize, upperKey);
+        }
+
+    }
+
+    /**
+     * @return the smallest key of the numbers starting with the digits
+     */
+    private static long lowerKey(@Nonnull String digits) {
+        // numbers shorter than the prefix can't start with it
+        return pad(digits) * 16 + digits.length();
+    }
+
+    /**
+     * @return a key greater than the keys of the numbers starting with the digits
+     */
+    private static long upperKey(@Nonnull String digits) {
+        return (pad(digits) + POWERS_OF_TEN[MAX_DIGITS - digits.length()]) * 16;
+    }
+
+    private static boolean contains(@Nonnull LongBuffer keys, long key) {
+        int position = search(keys, key);
+        return position < keys.limit() && keys.get(position) == key;
+    }
+
+    /**
+     * @return index of the first key that is not less than the given one
+     */
+    private static int search(@Nonnull LongBuffer keys, long key) {
+        int low = 0;
+        int high = keys.limit();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys.get(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first key in the range that is not less than the given one
+     */
+    private static int search(@Nonnull long[] keys, int from, int to, long key) {
+        int position = Arrays.binarySearch(keys, from, to, key);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    @Nonnull
+    private static String digitsOf(@Nonnull String prefix) {
+        String digits = prefix.startsWith("+") ? prefix.substring(1) : prefix;
+        Validate.isTrue(digits.length() <= MAX_DIGITS, "Prefix is too long");
+        for (int i = 0; i < digits.length(); i++) {
+            Validate.isTrue(digits.charAt(i) >= '0' && digits.charAt(i) <= '9', "Prefix must contain digits only");
+        }
+        return digits;
+    }
+
+    private static long pad(@Nonnull String digits) {
+        return digits.isEmpty() ? 0 : Long.parseLong(digits) * POWERS_OF_TEN[MAX_DIGITS - digits.length()];
+    }
+
+    private static long encode(@Nonnull PhoneNumber.Data data) {
+        int callingCode = data.getCountry().getCallingCode();
+        long nationalNumber = data.getNationalNumber();
+        int nationalLength = data.getNumberOfLeadingZeros() + digitCount(nationalNumber);
+        int length = digitCount(callingCode) + nationalLength;
+        Validate.isTrue(length <= MAX_DIGITS, "Phone number is longer than %d digits", MAX_DIGITS);
+        long digits = callingCode * POWERS_OF_TEN[nationalLength] + nationalNumber;
+        return digits * POWERS_OF_TEN[MAX_DIGITS - length] * 16 + length;
+    }
+
+    @Nonnull
+    private static String decode(long key) {
+        int length = (int) (key % 16);
+        long digits = key / 16 / POWERS_OF_TEN[MAX_DIGITS - length];
+        return "+" + digits; // the calling code never starts with zero
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -20,6 +20,13 @@ public final class PhoneNumberTypeAdapterFactory implements TypeAdapterFactory {
     @Nonnull
     private final PhoneNumberParser parser;
 
+    @Nonnull
+    private final ParseRecorder recorder;
+
+    public PhoneNumberTypeAdapterFactory(@Nonnull PhoneNumberParser parser) {
+        this(parser, ParseRecorder.DISABLED);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
@@ -27,7 +34,7 @@ public final class PhoneNumberTypeAdapterFactory implements TypeAdapterFactory {
             return null;
         }
         TypeAdapter<String> delegate = gson.getAdapter(String.class);
-        return (TypeAdapter<T>) new PhoneNumberTypeAdapter(parser, delegate);
+        return (TypeAdapter<T>) new PhoneNumberTypeAdapter(parser, recorder, delegate);
     }
 
     @AllArgsConstructor
@@ -36,6 +43,9 @@ public final class PhoneNumberTypeAdapterFactory implements TypeAdapterFactory {
         @Nonnull
         private final PhoneNumberParser parser;
 
+        @Nonnull
+        private final ParseRecorder recorder;
+
         @Nonnull
         private final TypeAdapter<String> delegate;
 
@@ -66,11 +76,16 @@ public final class PhoneNumberTypeAdapterFactory implements TypeAdapterFactory {
             if (StringUtils.isBlank(text)) {
                 return PhoneNumber.absent();
             }
+            long start = recorder.start();
             try {
-                return parser.parse(text);
+                PhoneNumber phoneNumber = parser.parse(text);
+                recorder.succeeded(ParseRecorder.Operation.PHONE_NUMBER_ADAPTER_READ, text, start);
+                return phoneNumber;
             }
             catch (PhoneNumber.ParseException ex) {
-                throw new JsonParseException(ex);
+                JsonParseException failure = new JsonParseException(ex);
+                recorder.failed(ParseRecorder.Operation.PHONE_NUMBER_ADAPTER_READ, text, start, failure);
+                throw failure;
             }
         }
 
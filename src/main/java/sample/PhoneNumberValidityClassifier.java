@@ -0,0 +1,138 @@
+package sample;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the validity of many phone numbers at once, with the same result as {@link PhoneNumber.Data#isValidNumber}.
+ * Numbers are grouped by calling code and the groups are checked in parallel.
+ * Per group the region lookup is done once (numbers of a calling code with one region are checked for that region,
+ * like {@link PhoneNumberUtil#isValidNumber} does after its lookup), and verdicts are cached:
+ * <ul>
+ * <li>by national number length, if the calling code belongs to one region and the length is not possible there
+ * (libphonenumber rejects these lengths before matching any pattern)</li>
+ * <li>by the national number itself, for repeated numbers</li>
+ * </ul>
+ * Verdicts are not cached by prefix, because the validity patterns of libphonenumber can depend on every digit.
+ */
+public final class PhoneNumberValidityClassifier {
+
+    private static final PhoneNumberUtil util = PhoneNumberUtil.getInstance();
+
+    public static final PhoneNumberValidityClassifier INSTANCE = new PhoneNumberValidityClassifier();
+
+    /**
+     * Max count of cached verdicts of repeated numbers per group
+     */
+    private static final int MAX_CACHED_NUMBERS = 65536;
+
+    /**
+     * National significant numbers are never longer (see PhoneNumberUtil.MAX_LENGTH_FOR_NSN)
+     */
+    private static final int MAX_NATIONAL_LENGTH = 17;
+
+    private static final byte LENGTH_UNKNOWN = 0;
+    private static final byte LENGTH_POSSIBLE = 1;
+    private static final byte LENGTH_IMPOSSIBLE = 2;
+
+    private PhoneNumberValidityClassifier() {
+        // singleton
+    }
+
+    /**
+     * @return true at the index of every valid number
+     */
+    @Nonnull
+    public boolean[] classify(@Nonnull List<PhoneNumber.Data> numbers) {
+        boolean[] valid = new boolean[numbers.size()];
+        // calling code in the upper half, index in the lower half; sorting groups by calling code
+        long[] keys = new long[numbers.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) numbers.get(i).getCountry().getCallingCode() << 32) | i;
+        }
+        Arrays.sort(keys);
+        List<int[]> groups = new ArrayList<>();
+        for (int start = 0, end = 0; start < keys.length; start = end) {
+            while (end < keys.length && keys[end] >>> 32 == keys[start] >>> 32) {
+                end++;
+            }
+            groups.add(new int[]{start, end});
+        }
+        groups.parallelStream().forEach(group -> classifyGroup(numbers, keys, group[0], group[1], valid));
+        return valid;
+    }
+
+    private static void classifyGroup(
+            @Nonnull List<PhoneNumber.Data> numbers, @Nonnull long[] keys, int start, int end, @Nonnull boolean[] valid) {
+        int callingCode = (int) (keys[start] >>> 32);
+        List<String> regions = util.getRegionCodesForCountryCode(callingCode);
+        if (regions.isEmpty()) {
+            // unknown calling code, never valid; the result is already false
+            return;
+        }
+        // with more regions the number has to be matched to a region, and
+        // the possible lengths of the main region do not apply to the others
+        String region = regions.size() == 1 ? regions.get(0) : null;
+        byte[] lengths = region != null ? new byte[MAX_NATIONAL_LENGTH + 1] : null;
+        Map<Long, Boolean> verdicts = new HashMap<>();
+        for (int i = start; i < end; i++) {
+            int index = (int) keys[i];
+            PhoneNumber.Data data = numbers.get(index);
+            if (lengths != null && !isPossibleLength(data, lengths)) {
+                continue;
+            }
+            Long number = data.getNationalNumber() * 32 + data.getNumberOfLeadingZeros();
+            Boolean verdict = verdicts.get(number);
+            if (verdict == null) {
+                Phonenumber.PhoneNumber libraryNumber = PhoneNumber.toLibraryNumber(data);
+                verdict = region != null
+                        ? util.isValidNumberForRegion(libraryNumber, region)
+                        : util.isValidNumber(libraryNumber);
+                if (verdicts.size() < MAX_CACHED_NUMBERS) {
+                    verdicts.put(number, verdict);
+                }
+            }
+            valid[index] = verdict;
+        }
+    }
+
+    /**
+     * @return false if the length of the national significant number is not possible in the region
+     */
+    private static boolean isPossibleLength(@Nonnull PhoneNumber.Data data, @Nonnull byte[] lengths) {
+        int length = data.getNumberOfLeadingZeros() + digitCount(data.getNationalNumber());
+        if (length >= lengths.length) {
+            return true;
+        }
+        if (lengths[length] == LENGTH_UNKNOWN) {
+            Phonenumber.PhoneNumber number = PhoneNumber.toLibraryNumber(data);
+            switch (util.isPossibleNumberWithReason(number)) {
+                case TOO_SHORT:
+                case TOO_LONG:
+                case INVALID_LENGTH:
+                    lengths[length] = LENGTH_IMPOSSIBLE;
+                    break;
+                default:
+                    lengths[length] = LENGTH_POSSIBLE;
+            }
+        }
+        return lengths[length] == LENGTH_POSSIBLE;
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,40 @@
+package sample;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Records the slow and the failing inputs of the delegate parser.
+ * @see ParseRecorder
+ */
+public final class RecordingPhoneNumberParser implements PhoneNumberParser {
+
+    @Nonnull
+    private final PhoneNumberParser delegate;
+
+    @Nonnull
+    private final ParseRecorder recorder;
+
+    public RecordingPhoneNumberParser(@Nonnull PhoneNumberParser delegate, @Nonnull ParseRecorder recorder) {
+        this.delegate = Validate.notNull(delegate, "delegate");
+        this.recorder = Validate.notNull(recorder, "recorder");
+    }
+
+    @Nonnull
+    @Override
+    public PhoneNumber parse(@Nullable String text) throws PhoneNumber.ParseException {
+        long start = recorder.start();
+        String input = text == null ? "" : text;
+        try {
+            PhoneNumber phoneNumber = delegate.parse(text);
+            recorder.succeeded(ParseRecorder.Operation.PHONE_NUMBER_PARSER_PARSE, input, start);
+            return phoneNumber;
+        } catch (PhoneNumber.ParseException | RuntimeException ex) {
+            recorder.failed(ParseRecorder.Operation.PHONE_NUMBER_PARSER_PARSE, input, start, ex);
+            throw ex;
+        }
+    }
+
+}
@@ -13,18 +13,44 @@ import java.util.Collection;
 
 public class ValidatingTypeAdapterFactory implements TypeAdapterFactory {
 
+    private final ParseRecorder recorder;
+
+    /**
+     * Count of the validating adapters reading on the current thread; only the outermost one records,
+     * because the inner ones are part of its read and a failure passes through all of them
+     */
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public ValidatingTypeAdapterFactory() {
+        this(ParseRecorder.DISABLED);
+    }
+
+    public ValidatingTypeAdapterFactory(ParseRecorder recorder) {
+        this.recorder = Validate.notNull(recorder, "recorder");
+    }
+
     @Override
     public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
         TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
-        return new ValidatingTypeAdapter<>(delegate);
+        return new ValidatingTypeAdapter<>(delegate, recorder, depth, type.toString());
     }
 
     private static class ValidatingTypeAdapter<T> extends TypeAdapter<T> {
 
         private final TypeAdapter<T> delegate;
 
-        private ValidatingTypeAdapter(TypeAdapter<T> delegate) {
+        private final ParseRecorder recorder;
+
+        private final ThreadLocal<int[]> depth;
+
+        private final String typeName;
+
+        private ValidatingTypeAdapter(
+                TypeAdapter<T> delegate, ParseRecorder recorder, ThreadLocal<int[]> depth, String typeName) {
             this.delegate = Validate.notNull(delegate, "delegate");
+            this.recorder = Validate.notNull(recorder, "recorder");
+            this.depth = Validate.notNull(depth, "depth");
+            this.typeName = typeName;
         }
 
         @Override
@@ -35,12 +61,39 @@ public class ValidatingTypeAdapterFactory implements TypeAdapterFactory {
 
         @Override
         public T read(JsonReader in) throws IOException {
+            if (!recorder.isEnabled()) {
+                return readValid(in);
+            }
+            int[] depth = this.depth.get();
+            boolean outermost = depth[0]++ == 0;
+            long start = recorder.start();
+            try {
+                T value = readValid(in);
+                if (outermost) {
+                    recorder.succeeded(ParseRecorder.Operation.VALIDATING_ADAPTER_READ, typeName, start);
+                }
+                return value;
+            } catch (IOException | RuntimeException ex) {
+                if (outermost) {
+                    recorder.failed(ParseRecorder.Operation.VALIDATING_ADAPTER_READ, typeName, start, ex);
+                }
+                throw ex;
+            } finally {
+                depth[0]--;
+            }
+        }
+
+        private T readValid(JsonReader in) throws IOException {
             T value = delegate.read(in);
             validate(value);
             return value;
         }
 
         private void validate(Object value) {
+            if (value instanceof PhoneNumberArray) {
+                // never has null or validatable elements, do not materialize them
+                return;
+            }
             if (value instanceof Collection) {
                 Validatables.validate((Collection<?>) value);
             } else if (value instanceof Validatable) {
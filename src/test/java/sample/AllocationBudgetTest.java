@@ -0,0 +1,247 @@
+package sample;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Guards the allocation rate of the hot paths. Budgets are bytes allocated per operation by the current thread,
+ * set 15-25% above the cost measured on JDK 8, so a regression of one extra object graph per operation fails.
+ * Raise a budget only if the extra allocation is intended.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP_OPERATIONS = 20_000;
+    private static final int MEASURED_OPERATIONS = 20_000;
+
+    private static final String VALID_NUMBER = "+36301234567";
+    private static final String INVALID_NUMBER = "+999123456";
+
+    /**
+     * Written numbers, so the E164 string built for the records without stored raw text is not the same every time
+     */
+    private static final int DISTINCT_NUMBERS = 8192;
+
+    private static final int ARRAY_SIZE = 100;
+
+    private static final long RAW_VALID_BUDGET = 3 * 1024;
+    private static final long RAW_INVALID_BUDGET = 8 * 1024;
+    private static final long READ_VALID_BUDGET = 3 * 1024;
+    private static final long READ_INVALID_BUDGET = 9 * 1024;
+    private static final long WRITE_VALID_BUDGET = 192;
+    private static final long WRITE_INVALID_BUDGET = 32;
+    private static final long READ_ARRAY_ELEMENT_BUDGET = 3 * 1024;
+    private static final long WRITE_ARRAY_BUDGET = 32;
+    private static final long VALIDATE_VALID_BUDGET = 128;
+    private static final long VALIDATE_INVALID_BUDGET = 2 * 1024;
+
+    private interface Operation {
+        void run() throws IOException;
+    }
+
+    private com.sun.management.ThreadMXBean threads;
+
+    private TypeAdapter<PhoneNumber> adapter;
+
+    private TypeAdapter<PhoneNumberArray> arrayAdapter;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Thread allocation counters are not available",
+                ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("Thread allocation counters are not supported", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new PhoneNumberTypeAdapterFactory(DefaultPhoneNumberParser.INSTANCE))
+                .registerTypeAdapterFactory(new PhoneNumberArrayTypeAdapterFactory(DefaultPhoneNumberParser.INSTANCE))
+                .registerTypeAdapterFactory(new ValidatingTypeAdapterFactory())
+                .create();
+        adapter = gson.getAdapter(PhoneNumber.class);
+        arrayAdapter = gson.getAdapter(PhoneNumberArray.class);
+    }
+
+    @Test
+    public void rawValidNumber() throws IOException {
+        assertBudget("PhoneNumber.raw (valid)", RAW_VALID_BUDGET, () -> PhoneNumber.raw(VALID_NUMBER));
+    }
+
+    @Test
+    public void rawInvalidNumber() throws IOException {
+        assertBudget("PhoneNumber.raw (invalid)", RAW_INVALID_BUDGET, () -> PhoneNumber.raw(INVALID_NUMBER));
+    }
+
+    @Test
+    public void readValidNumber() throws IOException {
+        JsonReader reader = arrayReader(VALID_NUMBER);
+        assertBudget("PhoneNumberTypeAdapter.read (valid)", READ_VALID_BUDGET, () -> adapter.read(reader));
+    }
+
+    @Test
+    public void readInvalidNumber() throws IOException {
+        JsonReader reader = arrayReader(INVALID_NUMBER);
+        assertBudget("PhoneNumberTypeAdapter.read (invalid)", READ_INVALID_BUDGET, () -> {
+            try {
+                adapter.read(reader);
+                Assert.fail("Invalid number is accepted");
+            } catch (JsonParseException ex) {
+                // expected
+            }
+        });
+    }
+
+    /**
+     * Rotates distinct numbers; their E164 strings are not stored, so they are built for every record.
+     */
+    @Test
+    public void writeValidNumber() throws IOException {
+        JsonWriter writer = arrayWriter();
+        PhoneNumber[] phoneNumbers = new PhoneNumber[DISTINCT_NUMBERS];
+        for (int i = 0; i < phoneNumbers.length; i++) {
+            phoneNumbers[i] = PhoneNumber.raw(String.format("+3630%07d", i));
+        }
+        int[] next = new int[1];
+        assertBudget("PhoneNumberTypeAdapter.write (valid)", WRITE_VALID_BUDGET,
+                () -> adapter.write(writer, phoneNumbers[next[0]++ % phoneNumbers.length]));
+    }
+
+    @Test
+    public void writeInvalidNumber() throws IOException {
+        JsonWriter writer = arrayWriter();
+        PhoneNumber phoneNumber = PhoneNumber.raw(INVALID_NUMBER);
+        assertBudget("PhoneNumberTypeAdapter.write (invalid)", WRITE_INVALID_BUDGET, () -> adapter.write(writer, phoneNumber));
+    }
+
+    /**
+     * Reads an array; no phone number is created, the cost is the parsing of the elements.
+     */
+    @Test
+    public void readPhoneNumberArray() throws IOException {
+        String json = arrayJson(VALID_NUMBER, ARRAY_SIZE);
+        assertBudget("PhoneNumberArrayTypeAdapter.read (valid)", READ_ARRAY_ELEMENT_BUDGET * ARRAY_SIZE,
+                () -> arrayAdapter.read(new JsonReader(new StringReader(json))));
+    }
+
+    /**
+     * Writes an array of formatted numbers, their raw texts are stored.
+     * The validating adapter wraps the array adapter; it must not materialize the elements.
+     */
+    @Test
+    public void writePhoneNumberArray() throws IOException {
+        JsonWriter writer = arrayWriter();
+        PhoneNumberArray array = new PhoneNumberArray(ARRAY_SIZE);
+        for (int i = 0; i < ARRAY_SIZE; i++) {
+            array.add(PhoneNumber.raw(String.format("+36 30 %07d", i)));
+        }
+        assertBudget("PhoneNumberArrayTypeAdapter.write (valid)", WRITE_ARRAY_BUDGET, () -> arrayAdapter.write(writer, array));
+    }
+
+    @Test
+    public void validateValidCollection() throws IOException {
+        List<SampleData> data = sampleData(VALID_NUMBER);
+        assertBudget("Validatables.validate (valid)", VALIDATE_VALID_BUDGET, () -> Validatables.validate(data));
+    }
+
+    @Test
+    public void validateInvalidCollection() throws IOException {
+        List<SampleData> data = sampleData(INVALID_NUMBER);
+        assertBudget("Validatables.validate (invalid)", VALIDATE_INVALID_BUDGET, () -> {
+            try {
+                Validatables.validate(data);
+                Assert.fail("Invalid number is accepted");
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        });
+    }
+
+    private void assertBudget(@Nonnull String name, long budget, @Nonnull Operation operation) throws IOException {
+        for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+            operation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+            operation.run();
+        }
+        long allocated = (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_OPERATIONS;
+        Assert.assertTrue(
+                String.format("%s allocates %d bytes per operation, budget is %d bytes", name, allocated, budget),
+                allocated <= budget);
+    }
+
+    /**
+     * @return reader positioned into an array that contains the value for every operation
+     */
+    @Nonnull
+    private static JsonReader arrayReader(@Nonnull String value) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(arrayJson(value, WARMUP_OPERATIONS + MEASURED_OPERATIONS)));
+        reader.beginArray();
+        return reader;
+    }
+
+    @Nonnull
+    private static String arrayJson(@Nonnull String value, int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append('"').append(value).append('"');
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * @return writer positioned into an array that discards the output
+     */
+    @Nonnull
+    private static JsonWriter arrayWriter() throws IOException {
+        JsonWriter writer = new JsonWriter(new Writer() {
+
+            @Override
+            public void write(@Nonnull char[] buffer, int offset, int length) {
+            }
+
+            @Override
+            public void write(int c) {
+            }
+
+            @Override
+            public void write(@Nonnull String text, int offset, int length) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+
+        });
+        writer.beginArray();
+        return writer;
+    }
+
+    @Nonnull
+    private static List<SampleData> sampleData(@Nonnull String number) {
+        return Collections.singletonList(SampleData.builder()
+                .name("name")
+                .phoneNumber(PhoneNumber.raw(number))
+                .build());
+    }
+
+}
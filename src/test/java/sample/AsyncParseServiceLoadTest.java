@@ -0,0 +1,222 @@
+package sample;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class AsyncParseServiceLoadTest {
+
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final int BATCH_SIZE = 16;
+    private static final int REQUESTS = 50_000;
+
+    /**
+     * Checked only by the benchmark task, wall-clock bounds are not reliable on shared machines
+     */
+    private static final long P99_LATENCY_BOUND_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Nonnull
+    private AsyncParseService service() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new PhoneNumberTypeAdapterFactory(DefaultPhoneNumberParser.INSTANCE))
+                .registerTypeAdapterFactory(new ValidatingTypeAdapterFactory())
+                .create();
+        return new AsyncParseService(DefaultPhoneNumberParser.INSTANCE, gson, executor, THREADS, QUEUE_CAPACITY, BATCH_SIZE);
+    }
+
+    @Test
+    public void parseAndDecode() {
+        try (AsyncParseService service = service()) {
+            Assert.assertEquals(PhoneNumber.raw("+36301234567"), service.parse("+36301234567").join());
+            SampleData data = service.fromJson("{\"name\":\"name\",\"phone_number\":\"+36301234567\"}", SampleData.class).join();
+            Assert.assertEquals(PhoneNumber.raw("+36301234567"), data.getPhoneNumber());
+            try {
+                service.parse("+999123456").join();
+                Assert.fail("Invalid number is accepted");
+            } catch (CompletionException ex) {
+                Assert.assertTrue(ex.getCause() instanceof PhoneNumber.ParseException);
+            }
+        }
+    }
+
+    @Test
+    public void completeBatchAfterError() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(Failing.class, new TypeAdapter<Failing>() {
+
+                    @Override
+                    public void write(JsonWriter out, Failing value) {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public Failing read(JsonReader in) {
+                        throw new AssertionError("failing adapter");
+                    }
+
+                })
+                .create();
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try (AsyncParseService service = new AsyncParseService(
+                DefaultPhoneNumberParser.INSTANCE, gson, single, 1, QUEUE_CAPACITY, BATCH_SIZE)) {
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                futures.add(i % 2 == 0 ? service.fromJson("{}", Failing.class) : service.parse("+36301234567"));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    Object result = futures.get(i).get(10, TimeUnit.SECONDS);
+                    Assert.assertEquals(PhoneNumber.raw("+36301234567"), result);
+                } catch (ExecutionException ex) {
+                    Assert.assertEquals(0, i % 2);
+                    Assert.assertTrue(ex.getCause() instanceof AssertionError);
+                } catch (InterruptedException | TimeoutException ex) {
+                    throw new AssertionError("Request " + i + " is not completed", ex);
+                }
+            }
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try (AsyncParseService service = new AsyncParseService(
+                DefaultPhoneNumberParser.INSTANCE, new Gson(), single, 1, QUEUE_CAPACITY, 1)) {
+            single.execute(() -> {
+                blocked.countDown();
+                awaitQuietly(release);
+            });
+            blocked.await();
+            List<CompletableFuture<PhoneNumber>> accepted = new ArrayList<>();
+            for (int i = 0; i < QUEUE_CAPACITY; i++) {
+                accepted.add(service.parse("+36301234567"));
+            }
+            Assert.assertEquals(0, service.remainingCapacity());
+            CompletableFuture<PhoneNumber> rejected = service.parse("+36301234567");
+            Assert.assertTrue(rejected.isCompletedExceptionally());
+            release.countDown();
+            for (CompletableFuture<PhoneNumber> future : accepted) {
+                Assert.assertTrue(future.join().isPresent());
+            }
+            try {
+                rejected.join();
+                Assert.fail("Request is accepted over the capacity");
+            } catch (CompletionException ex) {
+                Assert.assertTrue(ex.getCause() instanceof RejectedExecutionException);
+            }
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits faster than the workers can parse, retrying the rejected requests,
+     * and reports the latency percentiles.
+     * Latency is measured from the first attempt of a request, so the time spent on rejected attempts counts.
+     * The latency bound is asserted only if the {@code sample.benchmark} system property is true.
+     */
+    @Test
+    public void latencyUnderSaturation() {
+        long[] latencies = new long[REQUESTS];
+        List<CompletableFuture<?>> futures = new ArrayList<>(REQUESTS);
+        int rejections = 0;
+        try (AsyncParseService service = service()) {
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                String text = String.format("+3630%07d", i);
+                long start = System.nanoTime();
+                while (true) {
+                    CompletableFuture<PhoneNumber> future = service.parse(text);
+                    if (!rejected(future)) {
+                        futures.add(future.whenComplete((phoneNumber, ex) -> latencies[request] = System.nanoTime() - start));
+                        break;
+                    }
+                    rejections++;
+                    Thread.yield();
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%d requests, %d rejections, latency p50=%dus p99=%dus p99.9=%dus max=%dus%n",
+                REQUESTS, rejections,
+                micros(percentile(latencies, 0.50)), micros(percentile(latencies, 0.99)),
+                micros(percentile(latencies, 0.999)), micros(latencies[latencies.length - 1]));
+        // every request is completed
+        Assert.assertTrue(latencies[0] > 0);
+        Assert.assertTrue("The queue is never full", rejections > 0);
+        if (Boolean.getBoolean("sample.benchmark")) {
+            Assert.assertTrue("p99 latency is over the bound", percentile(latencies, 0.99) <= P99_LATENCY_BOUND_NANOS);
+        }
+    }
+
+    private static final class Failing {
+    }
+
+    private static boolean rejected(@Nonnull CompletableFuture<?> future) {
+        if (!future.isCompletedExceptionally()) {
+            return false;
+        }
+        try {
+            future.join();
+            return false;
+        } catch (CompletionException ex) {
+            return ex.getCause() instanceof RejectedExecutionException;
+        }
+    }
+
+    private static long percentile(@Nonnull long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static void awaitQuietly(@Nonnull CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
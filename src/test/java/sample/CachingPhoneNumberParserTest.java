@@ -0,0 +1,128 @@
+package sample;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class CachingPhoneNumberParserTest {
+
+    @Test
+    public void restoreSnapshot() throws IOException, PhoneNumber.ParseException {
+        Path file = Files.createTempDirectory("parse-cache").resolve("parse-cache.bin");
+        CachingPhoneNumberParser parser = new CachingPhoneNumberParser(DefaultPhoneNumberParser.INSTANCE, 100);
+        PhoneNumber parsed = parser.parse("+36 30 123 4567");
+        PhoneNumber.ParseException failure = parseFailure(parser, "+999123456");
+        parser.snapshot(file);
+
+        CachingPhoneNumberParser restored = new CachingPhoneNumberParser(DefaultPhoneNumberParser.INSTANCE, 100);
+        Assert.assertEquals(2, restored.load(file));
+        PhoneNumber phoneNumber = restored.parse("+36 30 123 4567");
+        Assert.assertEquals(parsed, phoneNumber);
+        Assert.assertEquals("+36 30 123 4567", phoneNumber.toRawString());
+        Assert.assertEquals("+36301234567", phoneNumber.get().toIsoString());
+        PhoneNumber.ParseException restoredFailure = parseFailure(restored, "+999123456");
+        Assert.assertEquals(PhoneNumber.ParseException.ErrorType.INVALID_COUNTRY_CODE, restoredFailure.getErrorType());
+        Assert.assertEquals(failure.getMessage(), restoredFailure.getMessage());
+    }
+
+    @Test
+    public void cachedFailureKeepsMessage() {
+        CachingPhoneNumberParser parser = new CachingPhoneNumberParser(DefaultPhoneNumberParser.INSTANCE, 100);
+        for (String text : new String[]{"+999123456", "36301234567"}) {
+            PhoneNumber.ParseException first = parseFailure(parser, text);
+            PhoneNumber.ParseException cached = parseFailure(parser, text);
+            Assert.assertNotSame(first, cached);
+            Assert.assertEquals(first.getErrorType(), cached.getErrorType());
+            Assert.assertEquals(first.getMessage(), cached.getMessage());
+            Assert.assertNull(cached.getCause());
+        }
+        Assert.assertEquals(2, parser.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws PhoneNumber.ParseException {
+        CachingPhoneNumberParser parser = new CachingPhoneNumberParser(DefaultPhoneNumberParser.INSTANCE, 64);
+        for (int i = 0; i < 1000; i++) {
+            parser.parse(String.format("+3630%07d", i));
+            Assert.assertTrue(parser.size() <= 64);
+        }
+        Assert.assertTrue(parser.size() > 32);
+    }
+
+    @Test
+    public void parseConcurrently() throws InterruptedException {
+        CachingPhoneNumberParser parser = new CachingPhoneNumberParser(DefaultPhoneNumberParser.INSTANCE, 256);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    String text = String.format("+3630%07d", i % 512);
+                    Assert.assertEquals(text, parser.parse(text).get().toIsoString());
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new AssertionError(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertTrue(parser.size() <= 256);
+    }
+
+    @Test
+    public void ignoreMissingSnapshot() throws IOException {
+        Path file = Files.createTempDirectory("parse-cache").resolve("missing.bin");
+        Assert.assertEquals(0, new CachingPhoneNumberParser(DefaultPhoneNumberParser.INSTANCE, 100).load(file));
+    }
+
+    @Test
+    public void ignoreSnapshotOfOtherVersion() throws IOException, PhoneNumber.ParseException {
+        Path file = Files.createTempDirectory("parse-cache").resolve("parse-cache.bin");
+        CachingPhoneNumberParser parser = new CachingPhoneNumberParser(DefaultPhoneNumberParser.INSTANCE, 100);
+        parser.parse("+36 30 123 4567");
+        parser.snapshot(file);
+        byte[] content = Files.readAllBytes(file);
+        // magic, file version, length of the libphonenumber version, then its last digit
+        ByteBuffer header = ByteBuffer.wrap(content);
+        int versionEnd = 12 + header.getInt(8);
+        content[versionEnd - 1] = (byte) (content[versionEnd - 1] == '0' ? '1' : '0');
+        Files.write(file, content);
+
+        CachingPhoneNumberParser restored = new CachingPhoneNumberParser(DefaultPhoneNumberParser.INSTANCE, 100);
+        Assert.assertEquals(0, restored.load(file));
+        Assert.assertEquals(0, restored.size());
+    }
+
+    @Test
+    public void readLibraryVersion() {
+        String version = CachingPhoneNumberParser.metadataVersion();
+        Assert.assertNotNull(version);
+        Assert.assertTrue(version, version.matches("\\d+\\.\\d+\\.\\d+"));
+    }
+
+    private static PhoneNumber.ParseException parseFailure(PhoneNumberParser parser, String text) {
+        try {
+            parser.parse(text);
+            throw new AssertionError("Invalid number is accepted");
+        } catch (PhoneNumber.ParseException ex) {
+            return ex;
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package sample;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class NdjsonIngestorTest {
+
+    private static final int THREADS = 4;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Nonnull
+    private NdjsonIngestor<SampleData> ingestor(int parallelism, int chunkSize) {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new PhoneNumberTypeAdapterFactory(DefaultPhoneNumberParser.INSTANCE))
+                .registerTypeAdapterFactory(new ValidatingTypeAdapterFactory())
+                .create();
+        return new NdjsonIngestor<>(gson, SampleData.class, executor, parallelism, chunkSize);
+    }
+
+    @Test
+    public void skipBlankLinesAndCarriageReturns() throws IOException, InterruptedException {
+        Path file = write(record("a") + "\r\n\r\n   \n" + record("b") + "\r\n\n");
+        Collector collector = new Collector();
+        NdjsonIngestor.Result result = ingestor(THREADS, NdjsonIngestor.DEFAULT_CHUNK_SIZE)
+                .ingest(file, NdjsonIngestor.Delivery.ORDERED, collector);
+        Assert.assertEquals(2, result.getRecords());
+        Assert.assertEquals(0, result.getFailures());
+        Assert.assertEquals(Arrays.asList("a", "b"), collector.names());
+        Assert.assertEquals(PhoneNumber.raw("+36301234567"), collector.records.get(1).getPhoneNumber());
+    }
+
+    @Test
+    public void reportFailureOffsetAndLine() throws IOException, InterruptedException {
+        String first = record("a") + "\r\n";
+        String second = "\n";
+        String third = "{\"name\":\"b\",\"phone_number\":\"+999123456\"}\n";
+        String fourth = record("c") + "\n";
+        String fifth = "{\"name\":";
+        Path file = write(first + second + third + fourth + fifth);
+        Collector collector = new Collector();
+        NdjsonIngestor.Result result = ingestor(THREADS, NdjsonIngestor.DEFAULT_CHUNK_SIZE)
+                .ingest(file, NdjsonIngestor.Delivery.ORDERED, collector);
+        Assert.assertEquals(2, result.getRecords());
+        Assert.assertEquals(2, result.getFailures());
+        Assert.assertEquals(Arrays.asList("a", "c"), collector.names());
+        NdjsonIngestor.Failure invalidNumber = collector.failures.get(0);
+        Assert.assertEquals(first.length() + second.length(), invalidNumber.getOffset());
+        Assert.assertEquals(3, invalidNumber.getLine());
+        NdjsonIngestor.Failure truncated = collector.failures.get(1);
+        Assert.assertEquals(first.length() + second.length() + third.length() + fourth.length(), truncated.getOffset());
+        Assert.assertEquals(5, truncated.getLine());
+    }
+
+    @Test
+    public void rejectContentAfterRecord() throws IOException, InterruptedException {
+        Path file = write(record("a") + " xyz\n" + record("b") + record("c") + "\n" + record("d") + "  \t\n");
+        Collector collector = new Collector();
+        NdjsonIngestor.Result result = ingestor(THREADS, NdjsonIngestor.DEFAULT_CHUNK_SIZE)
+                .ingest(file, NdjsonIngestor.Delivery.ORDERED, collector);
+        Assert.assertEquals(1, result.getRecords());
+        Assert.assertEquals(Collections.singletonList("d"), collector.names());
+        Assert.assertEquals(2, collector.failures.size());
+        for (NdjsonIngestor.Failure failure : collector.failures) {
+            Assert.assertTrue(failure.getCause() instanceof JsonSyntaxException);
+        }
+        Assert.assertEquals(Arrays.asList(1L, 2L),
+                collector.failures.stream().map(NdjsonIngestor.Failure::getLine).collect(Collectors.toList()));
+    }
+
+    /**
+     * Tiny chunks, so most lines span the boundary of the initial split.
+     */
+    @Test
+    public void linesSpanningChunks() throws IOException, InterruptedException {
+        List<String> expected = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            String name = "name" + i;
+            expected.add(name);
+            content.append(record(name)).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Path file = write(content.toString());
+        for (int chunkSize : new int[]{1, 7, 64, 4096}) {
+            Collector ordered = new Collector();
+            ingestor(THREADS, chunkSize).ingest(file, NdjsonIngestor.Delivery.ORDERED, ordered);
+            Assert.assertEquals(expected, ordered.names());
+            Assert.assertTrue(ordered.failures.isEmpty());
+
+            Collector unordered = new Collector();
+            ingestor(THREADS, chunkSize).ingest(file, NdjsonIngestor.Delivery.UNORDERED, unordered);
+            List<String> names = unordered.names();
+            Collections.sort(names);
+            List<String> sortedExpected = new ArrayList<>(expected);
+            Collections.sort(sortedExpected);
+            Assert.assertEquals(sortedExpected, names);
+        }
+    }
+
+    /**
+     * Every record is its own chunk; the records of the delivered chunks must be collectable during the ingestion.
+     */
+    @Test
+    public void releaseDeliveredChunks() throws IOException, InterruptedException {
+        int lines = 400;
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            content.append(record("name" + i)).append('\n');
+        }
+        Path file = write(content.toString());
+        for (NdjsonIngestor.Delivery delivery : NdjsonIngestor.Delivery.values()) {
+            List<WeakReference<SampleData>> delivered = new ArrayList<>();
+            int[] retained = new int[1];
+            ingestor(THREADS, 1).ingest(file, delivery, new NdjsonIngestor.Sink<SampleData>() {
+
+                @Override
+                public void accept(@Nonnull SampleData record) {
+                    delivered.add(new WeakReference<>(record));
+                    if (delivered.size() == lines - 1) {
+                        System.gc();
+                        retained[0] = (int) delivered.stream().filter(reference -> reference.get() != null).count();
+                    }
+                }
+
+                @Override
+                public void failed(@Nonnull NdjsonIngestor.Failure failure) {
+                    throw new AssertionError(failure.toString());
+                }
+
+            });
+            Assert.assertEquals(lines, delivered.size());
+            // the record under delivery, and at most a few that are still referenced from the stack
+            Assert.assertTrue(delivery + " retained: " + retained[0], retained[0] <= 4);
+        }
+    }
+
+    /**
+     * Reports the throughput of every thread count, the results must not depend on it.
+     */
+    @Test
+    public void throughputAcrossThreadCounts() throws IOException, InterruptedException {
+        int lines = 200_000;
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            content.append(String.format("{\"name\":\"name%d\",\"phone_number\":\"+3630%07d\"}%n", i, i));
+        }
+        Path file = write(content.toString());
+        for (int parallelism = 1; parallelism <= THREADS; parallelism *= 2) {
+            // warm up, then measure
+            ingestor(parallelism, 256 * 1024).ingest(file, NdjsonIngestor.Delivery.UNORDERED, new Collector());
+            Collector collector = new Collector();
+            long start = System.nanoTime();
+            NdjsonIngestor.Result result = ingestor(parallelism, 256 * 1024)
+                    .ingest(file, NdjsonIngestor.Delivery.ORDERED, collector);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%d threads: %d records in %dms, %d records/s%n", parallelism, result.getRecords(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), lines * TimeUnit.SECONDS.toNanos(1) / elapsed);
+            Assert.assertEquals(lines, result.getRecords());
+            Assert.assertEquals(0, result.getFailures());
+            Assert.assertEquals("name" + (lines - 1), collector.records.get(lines - 1).getName());
+        }
+    }
+
+    @Nonnull
+    private static String record(@Nonnull String name) {
+        return "{\"name\":\"" + name + "\",\"phone_number\":\"+36301234567\"}";
+    }
+
+    @Nonnull
+    private static Path write(@Nonnull String content) throws IOException {
+        Path file = Files.createTempFile("ingest", ".ndjson");
+        file.toFile().deleteOnExit();
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Collector implements NdjsonIngestor.Sink<SampleData> {
+
+        private final List<SampleData> records = new ArrayList<>();
+
+        private final List<NdjsonIngestor.Failure> failures = new ArrayList<>();
+
+        @Override
+        public void accept(@Nonnull SampleData record) {
+            records.add(record);
+        }
+
+        @Override
+        public void failed(@Nonnull NdjsonIngestor.Failure failure) {
+            failures.add(failure);
+        }
+
+        @Nonnull
+        private List<String> names() {
+            return records.stream().map(SampleData::getName).collect(Collectors.toList());
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+package sample;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class ParseRecorderTest {
+
+    private static final ParseRecorder.Operation OPERATION = ParseRecorder.Operation.PHONE_NUMBER_PARSER_PARSE;
+
+    /**
+     * @return start time of an operation that took the given milliseconds until now
+     */
+    private static long startedBefore(long millis) {
+        return System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void keepSlowest() {
+        ParseRecorder recorder = new ParseRecorder(2, 1, 1);
+        recorder.succeeded(OPERATION, "+36301111111", startedBefore(20));
+        recorder.succeeded(OPERATION, "+36302222222", startedBefore(10));
+        recorder.succeeded(OPERATION, "+36303333333", startedBefore(30));
+        // the threshold is raised to the faster kept sample, so faster inputs are not kept
+        recorder.succeeded(OPERATION, "+36304444444", startedBefore(15));
+        Assert.assertEquals(Arrays.asList("+3********33", "+3********11"), redactedInputs(recorder.slowest()));
+        recorder.succeeded(OPERATION, "+36305555555", startedBefore(25));
+        Assert.assertEquals(Arrays.asList("+3********33", "+3********55"), redactedInputs(recorder.slowest()));
+    }
+
+    @Test
+    public void keepLatestFailures() {
+        ParseRecorder recorder = new ParseRecorder(1, 2, 1);
+        for (String input : new String[]{"+999000001", "+999000002", "+999000003"}) {
+            recorder.failed(OPERATION, input, recorder.start(),
+                    new PhoneNumber.ParseException(PhoneNumber.ParseException.ErrorType.INVALID_COUNTRY_CODE, "invalid"));
+        }
+        List<ParseRecorder.Sample> failures = recorder.failures();
+        List<String> inputs = redactedInputs(failures);
+        Collections.sort(inputs);
+        Assert.assertEquals(Arrays.asList("+9******02", "+9******03"), inputs);
+        for (ParseRecorder.Sample failure : failures) {
+            Assert.assertEquals(PhoneNumber.ParseException.ErrorType.INVALID_COUNTRY_CODE, failure.getErrorType());
+            Assert.assertEquals(PhoneNumber.ParseException.class.getName(), failure.getExceptionType());
+        }
+    }
+
+    @Test
+    public void redactPhoneNumbers() {
+        ParseRecorder recorder = new ParseRecorder(4, 4, 1);
+        recorder.succeeded(OPERATION, "+36 30 123 4567", startedBefore(1));
+        recorder.succeeded(OPERATION, "+36301234567", startedBefore(2));
+        recorder.succeeded(ParseRecorder.Operation.VALIDATING_ADAPTER_READ, "sample.SampleData", startedBefore(3));
+        List<ParseRecorder.Sample> samples = recorder.slowest();
+        Assert.assertEquals(Arrays.asList("sample.SampleData", "+3********67", "+3* ** *** **67"), redactedInputs(samples));
+        // a type name is not hashed
+        Assert.assertEquals(0, samples.get(0).getPhoneNumberHash());
+        // the same text has the same hash, the formatted one is another text
+        Assert.assertNotEquals(samples.get(1).getPhoneNumberHash(), samples.get(2).getPhoneNumberHash());
+        recorder.succeeded(OPERATION, "+36301234567", startedBefore(4));
+        Assert.assertEquals(samples.get(1).getPhoneNumberHash(), recorder.slowest().get(0).getPhoneNumberHash());
+        // the key is random per recorder
+        ParseRecorder other = new ParseRecorder(1, 1, 1);
+        other.succeeded(OPERATION, "+36301234567", startedBefore(1));
+        Assert.assertNotEquals(samples.get(1).getPhoneNumberHash(), other.slowest().get(0).getPhoneNumberHash());
+    }
+
+    @Test
+    public void recordNestedReadOnce() {
+        ParseRecorder recorder = new ParseRecorder(8, 8, 1);
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new PhoneNumberTypeAdapterFactory(DefaultPhoneNumberParser.INSTANCE, recorder))
+                .registerTypeAdapterFactory(new ValidatingTypeAdapterFactory(recorder))
+                .create();
+        try {
+            gson.fromJson("{\"name\":\"name\",\"phone_number\":\"+999123456\"}", SampleData.class);
+            Assert.fail("Invalid number is accepted");
+        } catch (JsonParseException ex) {
+            // expected
+        }
+        List<ParseRecorder.Sample> failures = recorder.failures();
+        Assert.assertEquals(
+                Arrays.asList(ParseRecorder.Operation.PHONE_NUMBER_ADAPTER_READ, ParseRecorder.Operation.VALIDATING_ADAPTER_READ),
+                failures.stream().map(ParseRecorder.Sample::getOperation).sorted().collect(Collectors.toList()));
+        for (ParseRecorder.Sample failure : failures) {
+            Assert.assertEquals(PhoneNumber.ParseException.ErrorType.INVALID_COUNTRY_CODE, failure.getErrorType());
+            if (failure.getOperation() == ParseRecorder.Operation.VALIDATING_ADAPTER_READ) {
+                Assert.assertEquals(SampleData.class.getName(), failure.getRedactedInput());
+            }
+        }
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        ParseRecorder recorder = ParseRecorder.DISABLED;
+        recorder.succeeded(OPERATION, "+36301234567", startedBefore(1000));
+        recorder.failed(OPERATION, "+999123456", startedBefore(1000), new IllegalArgumentException());
+        Assert.assertFalse(recorder.isEnabled());
+        Assert.assertEquals(Collections.emptyList(), recorder.slowest());
+        Assert.assertEquals(Collections.emptyList(), recorder.failures());
+    }
+
+    @Nonnull
+    private static List<String> redactedInputs(@Nonnull List<ParseRecorder.Sample> samples) {
+        return samples.stream().map(ParseRecorder.Sample::getRedactedInput).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,94 @@
+package sample;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+public class PhoneNumberBloomFilterTest {
+
+    private static final int INSERTIONS = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Nonnull
+    private static PhoneNumber number(int i) {
+        return PhoneNumber.raw(String.format("+3630%07d", i));
+    }
+
+    @Nonnull
+    private static PhoneNumberBloomFilter filter() {
+        return PhoneNumberBloomFilter.build(
+                IntStream.range(0, INSERTIONS).parallel().mapToObj(PhoneNumberBloomFilterTest::number),
+                INSERTIONS, FALSE_POSITIVE_RATE);
+    }
+
+    @Test
+    public void noFalseNegatives() {
+        PhoneNumberBloomFilter filter = filter();
+        for (int i = 0; i < INSERTIONS; i++) {
+            Assert.assertTrue(filter.mightContain(number(i)));
+        }
+    }
+
+    @Test
+    public void observedFalsePositiveRate() {
+        PhoneNumberBloomFilter filter = filter();
+        int falsePositives = 0;
+        int checks = 100_000;
+        for (int i = 0; i < checks; i++) {
+            // never added: other range of the same network
+            if (filter.mightContain(number(5_000_000 + i))) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / checks;
+        Assert.assertTrue("false positive rate: " + rate, rate > FALSE_POSITIVE_RATE / 2 && rate < FALSE_POSITIVE_RATE * 1.5);
+    }
+
+    @Test
+    public void openWrittenFilter() throws IOException {
+        Path file = Files.createTempDirectory("bloom-filter").resolve("numbers.bf");
+        PhoneNumberBloomFilter filter = filter();
+        filter.writeTo(file);
+        PhoneNumberBloomFilter opened = PhoneNumberBloomFilter.open(file);
+        for (int i = 0; i < 2 * INSERTIONS; i += 7) {
+            Assert.assertEquals(filter.mightContain(number(i)), opened.mightContain(number(i)));
+        }
+        try {
+            opened.put(number(INSERTIONS));
+            Assert.fail("Opened filter is modified");
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectNotFilterFile() throws IOException {
+        Path file = Files.createTempDirectory("bloom-filter").resolve("numbers.bf");
+        Files.write(file, new byte[64]);
+        try {
+            PhoneNumberBloomFilter.open(file);
+            Assert.fail("Not a filter is opened");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void putRaw() {
+        PhoneNumberBloomFilter filter = PhoneNumberBloomFilter.create(100, FALSE_POSITIVE_RATE);
+        Assert.assertTrue(filter.putRaw("+36 30 123 4567"));
+        Assert.assertFalse(filter.putRaw("+999123456"));
+        Assert.assertFalse(filter.putRaw(""));
+        Assert.assertFalse(filter.putRaw(null));
+        Assert.assertTrue(filter.mightContain(PhoneNumber.raw("+36301234567")));
+        Assert.assertFalse(filter.mightContain(PhoneNumber.raw("+999123456")));
+        Assert.assertFalse(filter.mightContain(PhoneNumber.absent()));
+        Assert.assertFalse(filter.mightContain((PhoneNumber) null));
+    }
+
+}
@@ -0,0 +1,70 @@
+package sample;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the heap kept by {@link PhoneNumber} not storing the raw text that equals the E164 string,
+ * and the cost of building the E164 strings instead.
+ * Runs only in the benchmark task, it keeps 10M numbers.
+ */
+public class PhoneNumberHeapTest {
+
+    private static final int NUMBERS = 10_000_000;
+
+    /**
+     * String with char array of a 12 digit E164 string (at least 56 bytes with compressed references)
+     */
+    private static final long MIN_SAVING_PER_NUMBER = 56;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    public void heapSavingsOfCanonicalNumbers() {
+        Assume.assumeTrue("Benchmark only", Boolean.getBoolean("sample.benchmark"));
+        Assume.assumeTrue("Not enough heap to measure", Runtime.getRuntime().maxMemory() >= 3L * 1024 * 1024 * 1024);
+        long canonical = retainedHeap(i -> "+3630" + (1_000_000 + i % 9_000_000));
+        long formatted = retainedHeap(i -> "+36 30 " + (1_000_000 + i % 9_000_000));
+        long savingPerNumber = (formatted - canonical) / NUMBERS;
+        System.out.printf("%d numbers: canonical %dMB, formatted %dMB, %d bytes saved per number%n",
+                NUMBERS, canonical >> 20, formatted >> 20, savingPerNumber);
+        Assert.assertTrue("saved per number: " + savingPerNumber, savingPerNumber >= MIN_SAVING_PER_NUMBER);
+    }
+
+    /**
+     * @return heap kept by the numbers parsed from the texts
+     */
+    private long retainedHeap(@Nonnull IntFunction<String> rawText) {
+        long before = usedHeap();
+        PhoneNumber[] numbers = new PhoneNumber[NUMBERS];
+        for (int i = 0; i < NUMBERS; i++) {
+            numbers[i] = PhoneNumber.raw(rawText.apply(i));
+        }
+        long retained = usedHeap() - before;
+        long start = System.nanoTime();
+        long length = 0;
+        for (PhoneNumber number : numbers) {
+            Assert.assertTrue(number.isPresent());
+            length += number.toRawString().length();
+        }
+        System.out.printf("toRawString of %d numbers in %dms%n",
+                numbers.length, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        Assert.assertTrue(length > 0);
+        return retained;
+    }
+
+    private long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+}
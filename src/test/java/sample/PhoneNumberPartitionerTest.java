@@ -0,0 +1,62 @@
+package sample;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The expected values are persisted by the users of the fingerprint, they must never change.
+ */
+public class PhoneNumberPartitionerTest {
+
+    @Test
+    public void fingerprintGoldenValues() {
+        Assert.assertEquals(0xc4829c801dabf19fL, data("+36301234567").fingerprint());
+        Assert.assertEquals(0xd2d52ee854861fdeL, data("+12025550123").fingerprint());
+        // Italian numbers keep their leading zeros, these are part of the fingerprint
+        Assert.assertEquals(0xedf7d79f0e0669d7L, data("+390612345678").fingerprint());
+        Assert.assertEquals(0x7557fc8e6446fd90L, data("+390012345678").fingerprint());
+    }
+
+    @Test
+    public void fingerprintIgnoresFormatting() {
+        Assert.assertEquals(data("+36301234567").fingerprint(), data("+36 30 123 4567").fingerprint());
+        Assert.assertEquals(data("+390612345678").fingerprint(), data("+39 06 1234 5678").fingerprint());
+    }
+
+    @Test
+    public void partitionGoldenValues() {
+        PhoneNumberPartitioner partitioner = new PhoneNumberPartitioner(1000);
+        Assert.assertEquals(716, partitioner.partition(data("+36301234567")));
+        Assert.assertEquals(709, partitioner.partition(data("+12025550123")));
+        Assert.assertEquals(654, partitioner.partition(data("+390612345678")));
+        Assert.assertEquals(799, partitioner.partition(data("+390012345678")));
+        Assert.assertEquals(2, new PhoneNumberPartitioner(10).partition(data("+36301234567")));
+        Assert.assertEquals(7, new PhoneNumberPartitioner(10).partition(data("+390612345678")));
+        Assert.assertEquals(0, new PhoneNumberPartitioner(1).partition(data("+390612345678")));
+    }
+
+    @Test
+    public void growingMovesFewNumbers() {
+        PhoneNumberPartitioner partitioner = new PhoneNumberPartitioner(10);
+        PhoneNumberPartitioner grown = new PhoneNumberPartitioner(11);
+        int moved = 0;
+        for (long i = 0; i < 10000; i++) {
+            int partition = partitioner.partition(i);
+            int grownPartition = grown.partition(i);
+            if (partition != grownPartition) {
+                // a moved number always goes to the new partition
+                Assert.assertEquals(10, grownPartition);
+                moved++;
+            }
+        }
+        Assert.assertTrue("moved: " + moved, moved > 700 && moved < 1100);
+    }
+
+    @Nonnull
+    private static PhoneNumber.Data data(@Nonnull String text) {
+        return PhoneNumber.raw(text).get();
+    }
+
+}
@@ -0,0 +1,98 @@
+package sample;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class PhoneNumberPrefixIndexTest {
+
+    @Nonnull
+    private PhoneNumberPrefixIndex index() {
+        PhoneNumberPrefixIndex index = new PhoneNumberPrefixIndex();
+        index.addAll(Arrays.asList(
+                PhoneNumber.raw("+36301239999"),
+                PhoneNumber.raw("+36301234567"),
+                PhoneNumber.raw("+36201234567"),
+                PhoneNumber.raw("+12025550123"),
+                PhoneNumber.raw("+36301234567"),
+                PhoneNumber.absent()));
+        return index;
+    }
+
+    @Test
+    public void findByPrefix() {
+        PhoneNumberPrefixIndex index = index();
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals(2, index.count("+363012"));
+        Assert.assertEquals(Arrays.asList("+36301234567", "+36301239999"), index.find("363012", 0, 10));
+        Assert.assertEquals(Collections.singletonList("+36301234567"), index.find("+36", 1, 1));
+        Assert.assertEquals(Collections.emptyList(), index.find("+37", 0, 10));
+    }
+
+    @Test
+    public void findAfterIncrementalAdd() {
+        PhoneNumberPrefixIndex index = index();
+        Assert.assertEquals(0, index.count("+3670"));
+        index.add(PhoneNumber.raw("+36701234567"));
+        Assert.assertEquals(Collections.singletonList("+36701234567"), index.find("+3670", 0, 10));
+    }
+
+    @Test
+    public void openWrittenIndex() throws IOException {
+        Path file = Files.createTempDirectory("prefix-index").resolve("numbers.idx");
+        index().writeTo(file);
+        PhoneNumberPrefixIndex index = PhoneNumberPrefixIndex.open(file);
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals(Arrays.asList("+12025550123", "+36201234567"), index.find("", 0, 2));
+        index.add(PhoneNumber.raw("+36701234567"));
+        index.add(PhoneNumber.raw("+36301234567"));
+        Assert.assertEquals(5, index.size());
+        Assert.assertEquals(2, index.count("+363"));
+        Assert.assertEquals(4, index.count("+36"));
+        index.writeTo(file);
+        Assert.assertEquals(
+                Arrays.asList("+36201234567", "+36301234567", "+36301239999", "+36701234567"),
+                PhoneNumberPrefixIndex.open(file).find("+36", 0, 10));
+    }
+
+    /**
+     * Interleaves adds and paged queries, across merges of the delta into the base.
+     */
+    @Test
+    public void pageAcrossBaseAndDelta() {
+        Random random = new Random(42);
+        PhoneNumberPrefixIndex index = new PhoneNumberPrefixIndex();
+        TreeSet<String> expected = new TreeSet<>();
+        List<PhoneNumber> batch = new ArrayList<>();
+        for (int i = 0; i < PhoneNumberPrefixIndex.MAX_DELTA_SIZE + 1000; i++) {
+            String text = String.format("+3630%07d", random.nextInt(10_000_000));
+            expected.add(text);
+            batch.add(PhoneNumber.raw(text));
+        }
+        index.addAll(batch);
+        for (int round = 0; round < 200; round++) {
+            String text = String.format("+3630%07d", random.nextInt(10_000_000));
+            expected.add(text);
+            index.add(PhoneNumber.raw(text));
+            String prefix = text.substring(0, 7);
+            List<String> matching = new ArrayList<>(expected.subSet(prefix, prefix + "\uffff"));
+            Assert.assertEquals(expected.size(), index.size());
+            Assert.assertEquals(matching.size(), index.count(prefix));
+            int offset = random.nextInt(matching.size() + 1);
+            int limit = 1 + random.nextInt(5);
+            Assert.assertEquals(
+                    matching.subList(offset, Math.min(matching.size(), offset + limit)), index.find(prefix, offset, limit));
+        }
+    }
+
+}
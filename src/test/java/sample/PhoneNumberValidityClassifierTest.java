@@ -0,0 +1,76 @@
+package sample;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class PhoneNumberValidityClassifierTest {
+
+    private static final int NUMBERS = 100_000;
+    private static final String[] CALLING_CODES = {"1", "36", "44", "49", "7", "800", "999"};
+
+    private static final int ROUNDS = 5;
+
+    /**
+     * Compares the result and the speed with the per-number API.
+     * Both are warmed up, then the rounds alternate them; the fastest round of each is reported.
+     */
+    @Test
+    public void classifyLikeDataIsValidNumber() {
+        List<PhoneNumber.Data> numbers = randomNumbers();
+        boolean[] expected = perNumber(numbers);
+        Assert.assertArrayEquals(expected, PhoneNumberValidityClassifier.INSTANCE.classify(numbers));
+
+        long perNumberNanos = Long.MAX_VALUE;
+        long bulkNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            boolean[] valid = perNumber(numbers);
+            perNumberNanos = Math.min(perNumberNanos, System.nanoTime() - start);
+            Assert.assertArrayEquals(expected, valid);
+
+            start = System.nanoTime();
+            valid = PhoneNumberValidityClassifier.INSTANCE.classify(numbers);
+            bulkNanos = Math.min(bulkNanos, System.nanoTime() - start);
+            Assert.assertArrayEquals(expected, valid);
+        }
+        System.out.printf("%d numbers: per-number %dms, bulk %dms%n", numbers.size(),
+                TimeUnit.NANOSECONDS.toMillis(perNumberNanos), TimeUnit.NANOSECONDS.toMillis(bulkNanos));
+    }
+
+    private static boolean[] perNumber(List<PhoneNumber.Data> numbers) {
+        boolean[] valid = new boolean[numbers.size()];
+        for (int i = 0; i < numbers.size(); i++) {
+            valid[i] = numbers.get(i).isValidNumber();
+        }
+        return valid;
+    }
+
+    /**
+     * Valid, invalid, too short, too long and repeated numbers of known and unknown calling codes.
+     */
+    private static List<PhoneNumber.Data> randomNumbers() {
+        Random random = new Random(42);
+        List<PhoneNumber.Data> numbers = new ArrayList<>(NUMBERS);
+        while (numbers.size() < NUMBERS) {
+            StringBuilder text = new StringBuilder("+").append(CALLING_CODES[random.nextInt(CALLING_CODES.length)]);
+            int length = 4 + random.nextInt(10);
+            for (int i = 0; i < length; i++) {
+                text.append(random.nextInt(10));
+            }
+            PhoneNumber phoneNumber = PhoneNumber.raw(text.toString());
+            if (phoneNumber.isPresent()) {
+                numbers.add(phoneNumber.get());
+                if (random.nextInt(4) == 0) {
+                    numbers.add(phoneNumber.get());
+                }
+            }
+        }
+        return numbers;
+    }
+
+}
@@ -14,6 +14,7 @@ public class SampleTest {
         PhoneNumberParser parser = DefaultPhoneNumberParser.INSTANCE;
         GsonBuilder builder = new GsonBuilder();
         builder.registerTypeAdapterFactory(new PhoneNumberTypeAdapterFactory(parser));
+        builder.registerTypeAdapterFactory(new PhoneNumberArrayTypeAdapterFactory(parser));
         builder.registerTypeAdapterFactory(new ValidatingTypeAdapterFactory());
         return builder;
     }
@@ -30,6 +31,18 @@ public class SampleTest {
         Assert.assertEquals(expectedJson, json);
     }
 
+    @Test
+    public void serializeSampleDataWithFormattedPhoneNumber() {
+        Gson gson = gsonBuilder().create();
+        String expectedJson = "{\"name\":\"name\",\"phone_number\":\"+36 30 123 4567\"}";
+        SampleData request = SampleData.builder()
+                .name("name")
+                .phoneNumber(PhoneNumber.raw("+36 30 123 4567"))
+                .build();
+        String json = gson.toJson(request);
+        Assert.assertEquals(expectedJson, json);
+    }
+
     @Test
     public void serializeSampleDataWithoutPhoneNumberWithoutNulls() {
         Gson gson = gsonBuilder().create();
@@ -78,4 +91,45 @@ public class SampleTest {
         Assert.assertEquals(expectedRequest, request);
     }
 
+    @Test
+    public void serializePhoneNumberArray() {
+        Gson gson = gsonBuilder().create();
+        String expectedJson = "[\"+36301234567\",\"+36 30 123 4567\",null,\"+999123456\"]";
+        PhoneNumberArray array = new PhoneNumberArray();
+        array.add(PhoneNumber.raw("+36301234567"));
+        array.add(PhoneNumber.raw("+36 30 123 4567"));
+        array.add(PhoneNumber.absent());
+        array.add(PhoneNumber.raw("+999123456"));
+        String json = gson.toJson(array);
+        Assert.assertEquals(expectedJson, json);
+    }
+
+    @Test
+    public void parsePhoneNumberArray() {
+        Gson gson = gsonBuilder().create();
+        String json = "[\"+36301234567\",null,\" \"]";
+        PhoneNumberArray array = gson.fromJson(json, PhoneNumberArray.class);
+        Assert.assertEquals(3, array.size());
+        Assert.assertTrue(array.isPresent(0));
+        Assert.assertEquals(PhoneNumber.raw("+36301234567"), array.get(0));
+        Assert.assertEquals("+36301234567", array.get(0).toRawString());
+        Assert.assertTrue(array.hasEmptyRaw(1));
+        Assert.assertTrue(array.hasEmptyRaw(2));
+        Assert.assertFalse(array.get(2).isPresent());
+    }
+
+    @Test
+    public void parsePhoneNumberArrayLikeSingleNumbers() {
+        Gson gson = gsonBuilder().create();
+        String json = "[\"+36 30 123 4567\",\"+390612345678\",\"+12025550123 ext. 12\"]";
+        PhoneNumberArray array = gson.fromJson(json, PhoneNumberArray.class);
+        Assert.assertEquals(3, array.size());
+        Assert.assertEquals(gson.fromJson("\"+36 30 123 4567\"", PhoneNumber.class), array.get(0));
+        Assert.assertEquals("+36 30 123 4567", array.toRawString(0));
+        Assert.assertEquals(PhoneNumber.raw("+390612345678"), array.get(1));
+        Assert.assertEquals("+390612345678", array.get(1).get().toIsoString());
+        Assert.assertEquals(PhoneNumber.raw("+12025550123 ext. 12"), array.get(2));
+        Assert.assertEquals("+12025550123 ext. 12", array.toRawString(2));
+    }
+
 }